@@ -58,12 +58,22 @@ public class LaunchableAdapterTest {
     @Test
     public void testLoadLaunchablesNoDuplicateIds() throws Exception {
         Context appContext = ApplicationProvider.getApplicationContext();
-        File nameCache = tempdir.newFile("nameCache");
-        File statsFile = tempdir.newFile("statsFile");
+        LaunchRecorder launchRecorder = new LaunchRecorder(
+                new LaunchHistory(
+                        new File(tempdir.getRoot(), "launchHistory"),
+                        new LaunchableIds(new File(tempdir.getRoot(), "launchableIds")),
+                        null),
+                new File(tempdir.getRoot(), "scores"));
+        NameCacheWriter nameCache = new NameCacheWriter(
+                new File(tempdir.getRoot(), "nameCache"), launchRecorder.getLaunchableIds(), null);
         File lastOrderFile = tempdir.newFile("lastOrderFile");
+        SnapshotWriter snapshotWriter =
+                new SnapshotWriter(new File(tempdir.getRoot(), "snapshot"));
 
         List<Launchable> launchables =
-                LaunchableAdapter.loadLaunchables(appContext, nameCache, statsFile, lastOrderFile);
+                LaunchableAdapter.loadLaunchables(
+                        appContext, new Pipeline("Test"), nameCache, launchRecorder,
+                        lastOrderFile, snapshotWriter, null, null);
 
         // Map all IDs to the launchables with that ID
         HashMap<String, List<Launchable>> idToLaunchables = new HashMap<>();
@@ -44,13 +44,21 @@ class AppLaunchable extends IntentLaunchable {
         super(resolveInfo, packageManager);
     }
 
-    static List<Launchable> loadAppLaunchables(Context context) {
+    AppLaunchable(ComponentName componentName, PackageManager packageManager) {
+        super(componentName, packageManager);
+    }
+
+    /**
+     * @param packageName Only list launchables from this package, or null for all packages
+     */
+    static List<Launchable> loadAppLaunchables(Context context, @Nullable String packageName) {
         Timer timer = new Timer();
         final PackageManager packageManager = context.getPackageManager();
 
         timer.addLeg("Listing App Query Intents");
         Intent queryIntent = new Intent(Intent.ACTION_MAIN, null);
         queryIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+        queryIntent.setPackage(packageName);
         List<ResolveInfo> resInfos = packageManager.queryIntentActivities(queryIntent, 0);
 
         timer.addLeg("Creating App Launchables");
@@ -76,4 +84,10 @@ class AppLaunchable extends IntentLaunchable {
         intent.setData(Uri.parse("package:" + component.getPackageName()));
         return intent;
     }
+
+    @Nullable
+    @Override
+    LaunchableSnapshot.Entry createSnapshotEntry() {
+        return createSnapshotEntry(LaunchableSnapshot.TYPE_APP);
+    }
 }
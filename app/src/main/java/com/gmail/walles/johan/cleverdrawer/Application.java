@@ -31,6 +31,7 @@ import android.util.Log;
 
 import com.google.firebase.crashlytics.FirebaseCrashlytics;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
@@ -46,6 +47,11 @@ public class Application extends android.app.Application {
 
     private static final String TAG = "CleverDrawer";
 
+    private LaunchRecorder launchRecorder;
+    private LaunchableRepository launchableRepository;
+    private NameCacheWriter nameCacheWriter;
+    private SnapshotWriter snapshotWriter;
+
     @Override
     public void onCreate() {
         Timber.Tree tree;
@@ -59,6 +65,64 @@ public class Application extends android.app.Application {
         super.onCreate();
     }
 
+    /**
+     * The launch recorder outlives our activities so that launches that haven't been written yet
+     * are still there when the next activity loads its launchables.
+     */
+    synchronized LaunchRecorder getLaunchRecorder() {
+        if (launchRecorder == null) {
+            File filesDir = getFilesDir();
+            File launchHistoryFile = new File(filesDir, "launchHistory.ring");
+            File scoresFile = new File(filesDir, "scores.bin");
+
+            // Everything storing launchable ID indices
+            LaunchableIds launchableIds = new LaunchableIds(
+                    new File(filesDir, "launchableIds.txt"),
+                    launchHistoryFile,
+                    scoresFile,
+                    new File(filesDir, "lastOrder.json"),
+                    new File(filesDir, "snapshot.bin"));
+
+            launchRecorder = new LaunchRecorder(
+                    new LaunchHistory(
+                            launchHistoryFile,
+                            launchableIds,
+                            new File(filesDir, "statistics.json")),
+                    scoresFile);
+        }
+        return launchRecorder;
+    }
+
+    /**
+     * There must be only one of these, or their writes could race each other.
+     */
+    synchronized NameCacheWriter getNameCacheWriter() {
+        if (nameCacheWriter == null) {
+            File filesDir = getFilesDir();
+            nameCacheWriter = new NameCacheWriter(new File(filesDir, "nameCache.bin"),
+                    getLaunchRecorder().getLaunchableIds(), new File(filesDir, "nameCache.json"));
+        }
+        return nameCacheWriter;
+    }
+
+    /**
+     * There must be only one of these, or their writes could race each other.
+     */
+    synchronized SnapshotWriter getSnapshotWriter() {
+        if (snapshotWriter == null) {
+            snapshotWriter = new SnapshotWriter(new File(getFilesDir(), "snapshot.bin"));
+        }
+        return snapshotWriter;
+    }
+
+    synchronized LaunchableRepository getLaunchableRepository() {
+        if (launchableRepository == null) {
+            launchableRepository = new LaunchableRepository();
+            launchableRepository.registerForChanges(this);
+        }
+        return launchableRepository;
+    }
+
     private static boolean isCrashlyticsEnabled() {
         if (!isRunningOnAndroid()) {
             Log.d(TAG, "Not on Android, not logging to Crashlytics");
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.Objects;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A names cache entry, with enough information to tell whether the name is still current.
+ */
+class CachedName {
+    static final long UNKNOWN = -1;
+
+    public String name;
+
+    /**
+     * {@link PackageVersion#lastUpdateTime} of the package the name was resolved from.
+     */
+    public long lastUpdateTime = UNKNOWN;
+
+    /**
+     * {@link PackageVersion#versionCode} of the package the name was resolved from.
+     */
+    public long versionCode = UNKNOWN;
+
+    /**
+     * {@link java.util.Locale#toString()} of the locale the name was resolved under.
+     */
+    @Nullable
+    public String locale;
+
+    @SuppressWarnings("unused") // Used by Jackson
+    public CachedName() {
+    }
+
+    CachedName(String name, @Nullable PackageVersion version, @Nullable String locale) {
+        this.name = name;
+        if (version != null) {
+            this.lastUpdateTime = version.lastUpdateTime;
+            this.versionCode = version.versionCode;
+        }
+        this.locale = locale;
+    }
+
+    /**
+     * @return true if this name was resolved from this package version under this locale
+     */
+    boolean isCurrent(@Nullable PackageVersion version, String locale) {
+        if (version == null) {
+            // Can't tell
+            return false;
+        }
+
+        return lastUpdateTime == version.lastUpdateTime
+                && versionCode == version.versionCode
+                && locale.equals(this.locale);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (!(o instanceof CachedName)) {
+            return false;
+        }
+
+        CachedName that = (CachedName)o;
+        return lastUpdateTime == that.lastUpdateTime
+                && versionCode == that.versionCode
+                && Objects.equals(name, that.name)
+                && Objects.equals(locale, that.locale);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, lastUpdateTime, versionCode, locale);
+    }
+}
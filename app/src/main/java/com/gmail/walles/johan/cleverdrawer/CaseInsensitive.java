@@ -33,8 +33,31 @@ import java.util.Locale;
 public class CaseInsensitive implements Comparable<CaseInsensitive> {
     private final String original;
 
+    /**
+     * Our lowercased form, computed on demand and shared between threads.
+     */
     @Nullable
-    private String lowercase;
+    private volatile Folded folded;
+
+    /**
+     * Everything computed from lowercasing, published together so that no thread can see one part
+     * being out of date with another.
+     */
+    private static final class Folded {
+        private final Locale locale;
+        private final String lowercase;
+
+        /**
+         * Which characters {@link #lowercase} contains, see {@link #signature(String)}.
+         */
+        private final long signature;
+
+        private Folded(Locale locale, String lowercase) {
+            this.locale = locale;
+            this.lowercase = lowercase;
+            this.signature = signature(lowercase);
+        }
+    }
 
     /**
      * Create a possibly null CaseInsensitive from a possibly null CharSequence.
@@ -52,11 +75,46 @@ public class CaseInsensitive implements Comparable<CaseInsensitive> {
         original = charSequence.toString();
     }
 
-    private String getLowercase() {
-        if (lowercase == null) {
-            lowercase = original.toLowerCase(Locale.getDefault());
+    private Folded getFolded() {
+        // Lowercasing depends on the locale, redo it if the user has switched languages
+        Locale locale = Locale.getDefault();
+        Folded current = folded;
+        if (current == null || !locale.equals(current.locale)) {
+            // If several threads get here, they all compute the same thing
+            current = new Folded(locale, original.toLowerCase(locale));
+            folded = current;
+        }
+        return current;
+    }
+
+    String getLowercase() {
+        return getFolded().lowercase;
+    }
+
+    long getSignature() {
+        return getFolded().signature;
+    }
+
+    /**
+     * One bit for each of a-z and 0-9, all other characters share the remaining 28 bits.
+     * <p>
+     * If one string contains another, its signature has all the bits of the other one's.
+     */
+    static long signature(String lowercase) {
+        long signature = 0;
+        for (int i = 0; i < lowercase.length(); i++) {
+            char c = lowercase.charAt(i);
+            int bit;
+            if (c >= 'a' && c <= 'z') {
+                bit = c - 'a';
+            } else if (c >= '0' && c <= '9') {
+                bit = 26 + c - '0';
+            } else {
+                bit = 36 + c % 28;
+            }
+            signature |= 1L << bit;
         }
-        return lowercase;
+        return signature;
     }
 
     public boolean contains(CaseInsensitive substring) {
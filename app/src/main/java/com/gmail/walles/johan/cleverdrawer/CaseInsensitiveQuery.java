@@ -31,17 +31,74 @@ import java.util.List;
 public class CaseInsensitiveQuery {
     private final List<CaseInsensitive> words = new ArrayList<>(1);
 
+    /**
+     * All characters of all words, see {@link CaseInsensitive#signature(String)}.
+     */
+    private final long signature;
+
     public CaseInsensitiveQuery(String queryString) {
-        // From: https://stackoverflow.com/a/7899558/473672
-        for (String word: queryString.split("\\s+")) {
-            if (word.isEmpty()) {
+        // Split on whitespace without going through a regex
+        int wordStart = -1;
+        for (int i = 0; i <= queryString.length(); i++) {
+            boolean atSpace =
+                    i == queryString.length() || Character.isWhitespace(queryString.charAt(i));
+            if (!atSpace) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
                 continue;
             }
-            words.add(new CaseInsensitive(word));
+
+            if (wordStart >= 0) {
+                words.add(new CaseInsensitive(queryString.substring(wordStart, i)));
+                wordStart = -1;
+            }
+        }
+
+        long signature = 0;
+        for (CaseInsensitive word: words) {
+            signature |= word.getSignature();
+        }
+        this.signature = signature;
+    }
+
+    List<CaseInsensitive> getWords() {
+        return words;
+    }
+
+    long getSignature() {
+        return signature;
+    }
+
+    /**
+     * True if everything matching this query also matches {@code previous}.
+     * <p>
+     * That's the case if each word in {@code previous} is part of some word in this query, for
+     * example after typing more characters or adding another word.
+     */
+    public boolean narrows(CaseInsensitiveQuery previous) {
+        for (CaseInsensitive previousWord: previous.words) {
+            boolean found = false;
+            for (CaseInsensitive word: words) {
+                if (word.contains(previousWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
         }
+
+        return true;
     }
 
     public boolean matches(CaseInsensitive tryMe) {
+        if ((tryMe.getSignature() & signature) != signature) {
+            // Some of our characters aren't in there, no need to look any closer
+            return false;
+        }
+
         for (CaseInsensitive word: words) {
             if (!tryMe.contains(word)) {
                 return false;
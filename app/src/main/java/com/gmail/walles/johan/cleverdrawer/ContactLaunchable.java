@@ -115,6 +115,9 @@ class ContactLaunchable extends Launchable {
                 return Drawable.createFromStream(inputStream, photoRef.toString());
             } catch (FileNotFoundException e) {
                 Timber.w(e, "Contact photo thumbnail not found: %s", photoRef);
+            } catch (SecurityException e) {
+                // READ_CONTACTS has been revoked since this contact was loaded
+                Timber.w(e, "Not allowed to read contact photo thumbnail: %s", photoRef);
             }
         }
 
@@ -156,4 +159,11 @@ class ContactLaunchable extends Launchable {
     public Intent getAppInfoIntent() {
         return null;
     }
+
+    @Nullable
+    @Override
+    LaunchableSnapshot.Entry createSnapshotEntry() {
+        return LaunchableSnapshot.Entry.forContact(
+                id, photoRef == null ? null : photoRef.toString());
+    }
 }
@@ -25,56 +25,152 @@
 
 package com.gmail.walles.johan.cleverdrawer;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+import androidx.annotation.Nullable;
 import timber.log.Timber;
 
 public class DatabaseUtils {
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
-     * Keep track of at most this many launches.
+     * Only consider the SCORING_MAX_LAUNCH_COUNT most recent launches when scoring.
      */
-    private static final int MAX_LAUNCHES = 1500;
+    public static final int SCORING_MAX_LAUNCH_COUNT = 450;
 
     /**
-     * Only consider the SCORING_MAX_LAUNCH_COUNT most recent launches when scoring.
+     * Decode a legacy JSON names cache, for migrating it into a {@link NameCacheFile}.
      */
-    public static final int SCORING_MAX_LAUNCH_COUNT = 450;
+    static NameCachePartitions decodeNameCache(byte[] bytes, LaunchableIds launchableIds) {
+        try {
+            return parseNameCache(objectMapper.readTree(bytes), launchableIds);
+        } catch (IOException e) {
+            Timber.w(e, "Error decoding names cache, pretending it's empty");
+            return new NameCachePartitions();
+        }
+    }
 
-    public static Map<String, String> readIdToNameCache(File file) {
-        if (!file.exists()) {
-            Timber.i("No names cache file found, guessing this is the first launch");
-            return Collections.emptyMap();
+    private static NameCachePartitions parseNameCache(JsonNode root, LaunchableIds launchableIds) {
+        JsonNode partitionsNode = root.path("partitions");
+        if (!partitionsNode.isArray()) {
+            return partitionByLocale(parseIdToNameCache(root, launchableIds));
         }
 
-        // Load the launchables table into an id->name map
-        TypeReference<HashMap<String, String>> typeRef
-                = new TypeReference<HashMap<String, String>>() {};
-        try {
-            return objectMapper.readValue(file, typeRef);
-        } catch (IOException e) {
-            Timber.w(e, "Error reading names cache, pretending it's empty");
-            return Collections.emptyMap();
+        // Start with the least recently used locale, put() moves every new locale to the front
+        NameCachePartitions partitions = new NameCachePartitions();
+        for (int i = partitionsNode.size() - 1; i >= 0; i--) {
+            JsonNode partition = partitionsNode.get(i);
+            if (!partition.path("locale").isTextual()) {
+                continue;
+            }
+            partitions.put(partition.get("locale").asText(),
+                    parseIdToNameCache(partition.path("names"), launchableIds));
         }
+        return partitions;
     }
 
-    public static void nameLaunchablesFromCache(Map<String, String> cache, List<Launchable> launchables) {
-        // Update all launchable names from the map
+    /**
+     * Sort names from an older, unpartitioned cache into partitions by their locales.
+     */
+    private static NameCachePartitions partitionByLocale(CachedName[] cache) {
+        // Names from before we recorded locales get resolved again anyway, put them where they
+        // will be found
+        String currentLocale = Locale.getDefault().toString();
+
+        Map<String, CachedName[]> byLocale = new HashMap<>();
+        for (int i = 0; i < cache.length; i++) {
+            CachedName cachedName = cache[i];
+            if (cachedName == null) {
+                continue;
+            }
+
+            String locale = cachedName.locale != null ? cachedName.locale : currentLocale;
+            CachedName[] localeNames = byLocale.get(locale);
+            if (localeNames == null) {
+                localeNames = new CachedName[cache.length];
+                byLocale.put(locale, localeNames);
+            }
+            localeNames[i] = cachedName;
+        }
+
+        NameCachePartitions partitions = new NameCachePartitions();
+        for (Map.Entry<String, CachedName[]> entry: byLocale.entrySet()) {
+            partitions.put(entry.getKey(), entry.getValue());
+        }
+        if (byLocale.containsKey(currentLocale)) {
+            // Make sure the current locale survives any evictions
+            partitions.put(currentLocale, byLocale.get(currentLocale));
+        }
+        return partitions;
+    }
+
+    private static CachedName[] parseIdToNameCache(JsonNode root, LaunchableIds launchableIds) {
+        if (root.isArray()) {
+            CachedName[] cache = new CachedName[root.size()];
+            for (int i = 0; i < cache.length; i++) {
+                cache[i] = toCachedName(root.get(i));
+            }
+            return cache;
+        }
+
+        if (root.isObject()) {
+            // Old id->name format, index the IDs. The file will be rewritten in the new format the
+            // next time we cache true names.
+            Timber.i("Migrating names cache from id->name map");
+            List<CachedName> cache = new ArrayList<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                int index = launchableIds.intern(field.getKey());
+                while (cache.size() <= index) {
+                    cache.add(null);
+                }
+                cache.set(index, toCachedName(field.getValue()));
+            }
+            return cache.toArray(new CachedName[0]);
+        }
+
+        Timber.w("Unexpected names cache contents, pretending it's empty");
+        return new CachedName[0];
+    }
+
+    @Nullable
+    private static CachedName toCachedName(JsonNode node) {
+        if (node.isTextual()) {
+            // Old format without version information, the name will be resolved again
+            return new CachedName(node.asText(), null, null);
+        }
+
+        if (!node.isObject() || !node.path("name").isTextual()) {
+            return null;
+        }
+
+        CachedName cachedName = new CachedName(node.get("name").asText(), null, null);
+        cachedName.lastUpdateTime = node.path("lastUpdateTime").asLong(CachedName.UNKNOWN);
+        cachedName.versionCode = node.path("versionCode").asLong(CachedName.UNKNOWN);
+        if (node.path("locale").isTextual()) {
+            cachedName.locale = node.get("locale").asText();
+        }
+        return cachedName;
+    }
+
+    static void nameLaunchablesFromCache(NameCacheFile.View cache, List<Launchable> launchables) {
+        // Update all launchable names from the cache
         int updateCount = 0;
         for (Launchable launchable: launchables) {
             if (launchable.hasName()) {
@@ -83,11 +179,11 @@ public class DatabaseUtils {
                 continue;
             }
 
-            String name = cache.get(launchable.getId());
-            if (name == null) {
+            CachedName cachedName = cache.get(launchable.getId());
+            if (cachedName == null) {
                 continue;
             }
-            launchable.setName(new CaseInsensitive(name));
+            launchable.setName(new CaseInsensitive(cachedName.name));
             updateCount++;
         }
 
@@ -95,36 +191,96 @@ public class DatabaseUtils {
     }
 
     /**
-     * Update names cache with the true Launchable names.
+     * Cache the true names of all launchables, dropping all other cached names.
+     * <p>
+     * Names resolved from the currently installed package version under the current locale are
+     * taken from the old cache, all others are resolved again.
      * <p>
      * This method can be slow!
+     *
+     * @param oldCache Cached names for the current locale
+     * @param locale {@link Locale#toString()} of the current locale
+     * @param launchables Names are resolved in this order, so put the visible ones first
+     * @param listener Gets told about every resolved name, as soon as it has been resolved
+     * @return The new cache, indexed by {@link LaunchableIds} index
      */
-    public static void cacheTrueNames(File file, List<Launchable> launchables) throws IOException {
-        // Add all the non-null non-empty names to the cache
-        Timer timer = new Timer();
-        timer.addLeg("Collecting id->name map");
-        Map<String, String> cache = new HashMap<>();
+    static CachedName[] cacheTrueNames(CachedName[] oldCache, String locale,
+            LaunchableIds launchableIds, List<Launchable> launchables,
+            PackageVersion.Lookup packageVersions, @Nullable NameResolver.Listener listener)
+    {
+        CachedName[] cache = new CachedName[launchableIds.size()];
+        int resolvedCount = updateCachedNames(
+                cache, oldCache, locale, launchables, packageVersions, listener);
+        Timber.i("%d/%d true names resolved", resolvedCount, launchables.size());
+        return cache;
+    }
+
+    /**
+     * Update the cached names of some launchables, keeping all other cached names.
+     * <p>
+     * This method can be slow!
+     *
+     * @param oldCache Cached names for the current locale
+     * @param locale {@link Locale#toString()} of the current locale
+     * @return The new cache, indexed by {@link LaunchableIds} index
+     */
+    static CachedName[] updateCachedNames(CachedName[] oldCache, String locale,
+            LaunchableIds launchableIds, List<Launchable> launchables,
+            PackageVersion.Lookup packageVersions)
+    {
+        CachedName[] cache =
+                Arrays.copyOf(oldCache, Math.max(oldCache.length, launchableIds.size()));
+        int resolvedCount =
+                updateCachedNames(cache, oldCache, locale, launchables, packageVersions, null);
+        Timber.i("%d/%d updated names resolved", resolvedCount, launchables.size());
+        return cache;
+    }
+
+    /**
+     * Put current names for all launchables into the cache, reusing still current names from
+     * {@code oldCache}.
+     * <p>
+     * Names that aren't current are resolved in parallel by {@link NameResolver}, in list order.
+     *
+     * @return How many names had to be resolved
+     */
+    private static int updateCachedNames(CachedName[] cache, CachedName[] oldCache, String locale,
+            List<Launchable> launchables, PackageVersion.Lookup packageVersions,
+            @Nullable NameResolver.Listener listener)
+    {
+        List<Launchable> stale = new ArrayList<>();
+        List<PackageVersion> staleVersions = new ArrayList<>();
         for (Launchable launchable: launchables) {
-            if (launchable.getId() == null) {
+            int idIndex = launchable.getIdIndex();
+            if (idIndex < 0 || idIndex >= cache.length) {
                 continue;
             }
-            CaseInsensitive name = launchable.getTrueName();
-            if (name == null) {
+
+            String packageName = launchable.getPackageName();
+            PackageVersion version =
+                    packageName == null ? null : packageVersions.get(packageName);
+            CachedName oldName = idIndex < oldCache.length ? oldCache[idIndex] : null;
+            if (oldName != null && oldName.isCurrent(version, locale)) {
+                cache[idIndex] = oldName;
                 continue;
             }
-            cache.put(launchable.getId(), name.toString());
-        }
 
-        // For atomicity, write to temporary file, then rename
-        timer.addLeg("Writing to disk");
-        File tempfile = new File(file.getAbsolutePath() + ".tmp");
-        objectMapper.writeValue(tempfile, cache);
-        if (!tempfile.renameTo(file)) {
-            throw new IOException(String.format("Updating cache file failed: '%s'->'%s'",
-                    tempfile.getAbsolutePath(), file.getAbsolutePath()));
+            stale.add(launchable);
+            staleVersions.add(version);
         }
 
-        Timber.i("Caching true names took: %s", timer.toString());
+        CaseInsensitive[] trueNames = NameResolver.resolve(stale, listener);
+        int resolvedCount = 0;
+        for (int i = 0; i < trueNames.length; i++) {
+            CaseInsensitive name = trueNames[i];
+            if (name == null) {
+                continue;
+            }
+            resolvedCount++;
+            cache[stale.get(i).getIdIndex()] =
+                    new CachedName(name.toString(), staleVersions.get(i), locale);
+        }
+        return resolvedCount;
     }
 
     public static final class LaunchMetadata {
@@ -145,80 +301,114 @@ public class DatabaseUtils {
     }
 
     /**
-     * Register that this launchable has been launched.
+     * Score launchables based on how often they have been launched recently.
+     * <p>
+     * Launchables are matched with launches by {@link Launchable#getIdIndex()}. Launchables that
+     * haven't been launched recently lose any score they had.
      */
-    public static void registerLaunch(File file, Launchable launchable) throws IOException {
-        registerLaunch(file, launchable, System.currentTimeMillis());
+    static void scoreLaunchables(
+            Iterable<Launchable> launchables, LaunchLog launches, LaunchableIds launchableIds)
+    {
+        scoreLaunchables(launchables, ScoreTable.fromLaunches(launches, launchableIds));
+    }
+
+    static void scoreLaunchables(Iterable<Launchable> launchables, ScoreTable scoreTable) {
+        for (Launchable launchable: launchables) {
+            int launchCount = scoreTable.getCount(launchable.getIdIndex());
+            if (launchCount == 0) {
+                launchable.clearScore();
+                continue;
+            }
+
+            // Start scoring at 2, since not-scored Launchables will implicitly get 1, and we want
+            // to be better than that.
+            launchable.setScore(launchCount + 1.0);
+        }
     }
 
     /**
-     * Register that this launchable has been launched.
+     * Decode a JSON launch history, as written by {@link #saveLaunches(File, List)}.
+     * <p>
+     * This streams through the JSON tokens and fills in primitive arrays directly, without creating
+     * any per-launch objects except for the ID strings.
+     *
+     * @param maxCount Only return this many launches from the end of the history. Older launches
+     *                 are parsed but not kept.
      */
-    private static void registerLaunch(File file, Launchable launchable, long timestamp)
+    static LaunchArrays decodeLaunches(
+            InputStream launchHistoryStream, LaunchableIds launchableIds, int maxCount)
             throws IOException
     {
-        List<LaunchMetadata> launches = loadLaunches(file);
+        if (maxCount < 1) {
+            throw new IllegalArgumentException("maxCount must be at least 1, was " + maxCount);
+        }
 
-        LaunchMetadata newLaunch = new LaunchMetadata();
-        newLaunch.id = launchable.getId();
-        newLaunch.timestamp = timestamp;
-        launches.add(newLaunch);
+        // Filled in as a ring buffer if there are more than maxCount launches
+        int capacity = Math.min(maxCount, 256);
+        int[] idIndices = new int[capacity];
+        long[] timestamps = new long[capacity];
+        int count = 0;
+        int next = 0;
 
-        // Stay below the ceiling
-        while (launches.size() > MAX_LAUNCHES) {
-            launches.remove(0);
-        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(launchHistoryStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected launch history array, got: " + parser.getCurrentToken());
+            }
 
-        saveLaunches(file, launches);
-    }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String id = null;
+                long timestamp = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String fieldName = parser.getCurrentName();
+                    parser.nextToken();
+                    if ("id".equals(fieldName)) {
+                        id = parser.getValueAsString();
+                    } else if ("timestamp".equals(fieldName)) {
+                        timestamp = parser.getValueAsLong();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
 
-    static void scoreLaunchables(Iterable<Launchable> launchables, List<LaunchMetadata> launches) {
-        if (launches.size() > SCORING_MAX_LAUNCH_COUNT) {
-            launches = launches.subList(launches.size() - SCORING_MAX_LAUNCH_COUNT, launches.size());
-        }
+                if (id == null) {
+                    Timber.w("Launch without ID in launch history, skipping");
+                    continue;
+                }
 
-        Map<String, Double> idToScore = new HashMap<>();
-        for (LaunchMetadata launch : launches) {
-            Double score = idToScore.get(launch.id);
-            if (score == null) {
-                // Start scoring at 2, since not-scored Launchables will implicitly get 1, and we
-                // want to be better than that.
-                score = 2.0;
-            } else {
-                score++;
-            }
-            idToScore.put(launch.id, score);
-        }
+                if (next == capacity && capacity < maxCount) {
+                    // Grow
+                    capacity = Math.min(capacity * 2, maxCount);
+                    idIndices = Arrays.copyOf(idIndices, capacity);
+                    timestamps = Arrays.copyOf(timestamps, capacity);
+                }
+                if (next == capacity) {
+                    // Full, wrap around and start replacing the oldest launches
+                    next = 0;
+                }
 
-        // Apply ID scores to our launchables
-        for (Launchable launchable: launchables) {
-            Double score = idToScore.get(launchable.getId());
-            if (score == null) {
-                continue;
+                idIndices[next] = launchableIds.intern(id);
+                timestamps[next] = timestamp;
+                next++;
+                count = Math.min(count + 1, capacity);
             }
-
-            launchable.setScore(score);
         }
-    }
 
-    public static List<LaunchMetadata> loadLaunches(File launchHistoryFile) {
-        try (InputStream launchHistoryStream = new BufferedInputStream(new FileInputStream(launchHistoryFile))) {
-            return loadLaunches(launchHistoryStream);
-        } catch (FileNotFoundException e) {
-            return new LinkedList<>();
-        } catch (IOException e) {
-            Timber.w(e, "Error reading launches list, pretending it is empty");
-            return new LinkedList<>();
+        if (count == capacity && next != capacity) {
+            // We have wrapped, rotate the oldest launch to the start
+            int[] orderedIdIndices = new int[count];
+            long[] orderedTimestamps = new long[count];
+            int tailLength = capacity - next;
+            System.arraycopy(idIndices, next, orderedIdIndices, 0, tailLength);
+            System.arraycopy(idIndices, 0, orderedIdIndices, tailLength, next);
+            System.arraycopy(timestamps, next, orderedTimestamps, 0, tailLength);
+            System.arraycopy(timestamps, 0, orderedTimestamps, tailLength, next);
+            return new LaunchArrays(orderedIdIndices, orderedTimestamps, count);
         }
-    }
 
-    static List<LaunchMetadata> loadLaunches(InputStream launchHistoryStream) throws IOException {
-        TypeReference<LinkedList<LaunchMetadata>> typeRef
-                = new TypeReference<LinkedList<LaunchMetadata>>() {};
-        return objectMapper.readValue(launchHistoryStream, typeRef);
+        return new LaunchArrays(idIndices, timestamps, count);
     }
 
-    private static void saveLaunches(File file, List<LaunchMetadata> metadata) throws IOException {
+    static void saveLaunches(File file, List<LaunchMetadata> metadata) throws IOException {
         // For atomicity, write to temporary file, then rename
         File tempfile = new File(file.getAbsolutePath() + ".tmp");
         objectMapper.writeValue(tempfile, metadata);
@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Lowercased launchable names, all in one {@code char[]}, for matching without allocating
+ * anything.
+ */
+class FoldedNames {
+    private final Locale locale;
+
+    /**
+     * Name {@code i} is in here from {@code starts[i]} up to {@code starts[i + 1]}.
+     */
+    private final char[] chars;
+    private final int[] starts;
+
+    /**
+     * See {@link CaseInsensitive#signature(String)}.
+     */
+    private final long[] signatures;
+
+    FoldedNames(List<Launchable> launchables) {
+        locale = Locale.getDefault();
+        starts = new int[launchables.size() + 1];
+        signatures = new long[launchables.size()];
+
+        String[] lowercased = new String[launchables.size()];
+        for (int i = 0; i < lowercased.length; i++) {
+            lowercased[i] = launchables.get(i).getName().toString().toLowerCase(locale);
+            starts[i + 1] = starts[i] + lowercased[i].length();
+            signatures[i] = CaseInsensitive.signature(lowercased[i]);
+        }
+
+        chars = new char[starts[lowercased.length]];
+        for (int i = 0; i < lowercased.length; i++) {
+            lowercased[i].getChars(0, lowercased[i].length(), chars, starts[i]);
+        }
+    }
+
+    /**
+     * The locale the names were lowercased in.
+     */
+    Locale getLocale() {
+        return locale;
+    }
+
+    int size() {
+        return signatures.length;
+    }
+
+    int getStart(int index) {
+        return starts[index];
+    }
+
+    int getEnd(int index) {
+        return starts[index + 1];
+    }
+
+    char charAt(int position) {
+        return chars[position];
+    }
+
+    /**
+     * Like {@link CaseInsensitiveQuery#matches(CaseInsensitive)} for name {@code index}.
+     */
+    boolean matches(int index, CaseInsensitiveQuery query) {
+        long querySignature = query.getSignature();
+        if ((signatures[index] & querySignature) != querySignature) {
+            return false;
+        }
+
+        // Indexed loop, iterators are garbage
+        List<CaseInsensitive> words = query.getWords();
+        for (int i = 0; i < words.size(); i++) {
+            if (!contains(index, words.get(i).getLowercase())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(int index, String word) {
+        int last = starts[index + 1] - word.length();
+        for (int start = starts[index]; start <= last; start++) {
+            if (regionMatches(start, word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionMatches(int start, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (chars[start + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
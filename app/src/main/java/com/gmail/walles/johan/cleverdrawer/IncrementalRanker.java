@@ -0,0 +1,215 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * Ranks launchables from several sources, one source at a time as they are done loading.
+ * <p>
+ * Each time a source is added, everything we have is deduplicated by ID, scored and ranked.
+ * Duplicate IDs are resolved by source priority, so the result doesn't depend on which source
+ * finished first.
+ * <p>
+ * Until the last source is in, each ranking is handed to the partial result listener, merged into
+ * what the listener got before so that what's already shown doesn't jump around when more
+ * launchables come in.
+ * <p>
+ * The final ranking is the complete stabilized ranking, with unique names. Uniquifying renames
+ * launchables, so it's only done for the final ranking, and only on copies. Launchables handed out
+ * in partial results are never modified.
+ */
+class IncrementalRanker {
+    private final ScoreTable scores;
+    private final int[] lastOrderIds;
+
+    @Nullable
+    private final LaunchableAdapter.PartialResultListener partialListener;
+
+    /**
+     * Scored launchables by source, null for sources not added yet.
+     */
+    private final List<List<Launchable>> sources;
+    private int remainingSources;
+
+    /**
+     * The last partial result, or the final result when all sources are in.
+     */
+    private List<Launchable> launchables = Collections.emptyList();
+
+    /**
+     * Numbers partial results, so that they can be delivered in order without holding our lock.
+     */
+    private long partialResultCount;
+
+    private final Object deliveryLock = new Object();
+
+    /**
+     * The number of the last partial result delivered, guarded by {@link #deliveryLock}.
+     */
+    private long deliveredCount;
+
+    /**
+     * @param sourceCount How many sources will be added using {@link #add(int, Collection)}
+     * @param partialListener Gets the ranked launchables after each source but the last
+     */
+    IncrementalRanker(ScoreTable scores, int[] lastOrderIds, int sourceCount,
+            @Nullable LaunchableAdapter.PartialResultListener partialListener)
+    {
+        this.scores = scores;
+        this.lastOrderIds = lastOrderIds;
+        this.sources = new ArrayList<>(Collections.nCopies(sourceCount, (List<Launchable>)null));
+        this.remainingSources = sourceCount;
+        this.partialListener = partialListener;
+    }
+
+    /**
+     * @param source Which source the launchables come from. Launchables from lower numbered
+     *               sources win over launchables with the same ID from higher numbered sources.
+     * @param increment Indexed and named launchables
+     * @return Everything ranked so far, including the increment. Never modified after this.
+     */
+    List<Launchable> add(int source, Collection<Launchable> increment) {
+        List<Launchable> ranked;
+        long partialResultNumber;
+        synchronized (this) {
+            if (sources.get(source) != null) {
+                throw new IllegalStateException("Source " + source + " added twice");
+            }
+
+            // Nobody has seen these yet, so scoring them here is fine
+            List<Launchable> added = new ArrayList<>(increment);
+            LaunchableAdapter.dropUnnamed(added);
+            DatabaseUtils.scoreLaunchables(added, scores);
+            sources.set(source, added);
+            remainingSources--;
+
+            if (remainingSources == 0) {
+                launchables = rankFinal();
+                return launchables;
+            }
+
+            ranked = rank(dedup());
+            if (partialListener == null) {
+                launchables = ranked;
+                return launchables;
+            }
+
+            // Merge into what the listener got last time
+            launchables = StabilityUtils.keepShownOrder(launchables, ranked);
+            ranked = launchables;
+            partialResultNumber = ++partialResultCount;
+        }
+
+        synchronized (deliveryLock) {
+            // Another thread may have delivered a later partial result after we let go of our lock
+            if (partialResultNumber > deliveredCount) {
+                deliveredCount = partialResultNumber;
+                partialListener.onPartialResult(ranked);
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * Call this when all sources are done.
+     *
+     * @return The final ranking. If some source never got added, we rank without it.
+     */
+    synchronized List<Launchable> getLaunchables() {
+        if (remainingSources > 0) {
+            Timber.w("Ranking without %d source(s)", remainingSources);
+            remainingSources = 0;
+            launchables = rankFinal();
+        }
+        return launchables;
+    }
+
+    private List<Launchable> rankFinal() {
+        List<Launchable> deduped = dedup();
+        copySameNamed(deduped);
+        new Uniquifier().uniquify(deduped);
+        return rank(deduped);
+    }
+
+    /**
+     * Replace launchables that {@link Uniquifier} could rename with copies of themselves.
+     */
+    private static void copySameNamed(List<Launchable> launchables) {
+        Map<String, Integer> nameCounts = new HashMap<>();
+        for (Launchable launchable: launchables) {
+            String name = launchable.getName().toString();
+            Integer count = nameCounts.get(name);
+            nameCounts.put(name, count == null ? 1 : count + 1);
+        }
+
+        for (int i = 0; i < launchables.size(); i++) {
+            Launchable launchable = launchables.get(i);
+            if (nameCounts.get(launchable.getName().toString()) > 1) {
+                launchables.set(i, launchable.copy());
+            }
+        }
+    }
+
+    /**
+     * @return All launchables from all sources so far, without duplicate IDs
+     */
+    private List<Launchable> dedup() {
+        BitSet seenIds = new BitSet();
+        List<Launchable> deduped = new ArrayList<>();
+        for (List<Launchable> source: sources) {
+            if (source == null) {
+                continue;
+            }
+
+            for (Launchable launchable: source) {
+                int idIndex = launchable.getIdIndex();
+                if (idIndex >= 0) {
+                    if (seenIds.get(idIndex)) {
+                        continue;
+                    }
+                    seenIds.set(idIndex);
+                }
+                deduped.add(launchable);
+            }
+        }
+        return deduped;
+    }
+
+    private List<Launchable> rank(List<Launchable> deduped) {
+        Collections.sort(deduped);
+        return StabilityUtils.stabilize(lastOrderIds, deduped);
+    }
+}
@@ -48,6 +48,7 @@ import androidx.annotation.Nullable;
 import timber.log.Timber;
 
 public class IntentLaunchable extends Launchable {
+    @Nullable
     private ResolveInfo resolveInfo;
     private PackageManager packageManager;
 
@@ -65,6 +66,17 @@ public class IntentLaunchable extends Launchable {
         this.launchIntent = createLaunchIntent(resolveInfo);
     }
 
+    /**
+     * For recreating a launchable from a {@link LaunchableSnapshot} without querying the package
+     * manager. The name needs to be set separately.
+     */
+    protected IntentLaunchable(ComponentName componentName, PackageManager packageManager) {
+        super(componentName.getPackageName() + "." + componentName.getClassName());
+
+        this.packageManager = packageManager;
+        this.launchIntent = createLaunchIntent(componentName);
+    }
+
     @TestOnly
     public IntentLaunchable(String id, @NonNull CaseInsensitive name) {
         super(id);
@@ -72,13 +84,19 @@ public class IntentLaunchable extends Launchable {
         this.launchIntent = null;
     }
 
-    private static List<Launchable> loadSettingsLaunchables(Context context) {
+    /**
+     * @param packageName Only list launchables from this package, or null for all packages
+     */
+    static List<Launchable> loadSettingsLaunchables(
+            Context context, @Nullable String packageName)
+    {
         Timer timer = new Timer();
         final PackageManager packageManager = context.getPackageManager();
 
         timer.addLeg("Listing Settings Query Intents");
         List<ResolveInfo> resInfos = new LinkedList<>();
         for (Intent intent: getSettingsQueryIntents()) {
+            intent.setPackage(packageName);
             resInfos.addAll(packageManager.queryIntentActivities(intent, 0));
         }
 
@@ -97,8 +115,18 @@ public class IntentLaunchable extends Launchable {
      * empty names.
      */
     public static List<Launchable> loadLaunchables(Context context) {
-        List<Launchable> launchables = new ArrayList<>(AppLaunchable.loadAppLaunchables(context));
-        launchables.addAll(loadSettingsLaunchables(context));
+        return loadLaunchables(context, null);
+    }
+
+    /**
+     * @param packageName Only list launchables from this package, or null for all packages
+     * @return A collection of launchables. No duplicate IDs, but zero or more Launchables may have
+     * empty names.
+     */
+    public static List<Launchable> loadLaunchables(Context context, @Nullable String packageName) {
+        List<Launchable> launchables =
+                new ArrayList<>(AppLaunchable.loadAppLaunchables(context, packageName));
+        launchables.addAll(loadSettingsLaunchables(context, packageName));
         return launchables;
     }
 
@@ -163,12 +191,28 @@ public class IntentLaunchable extends Launchable {
     public Drawable getIcon() {
         if (icon == null) {
             // Slow!
-            icon = resolveInfo.loadIcon(packageManager);
+            icon = loadIcon();
         }
 
         return icon;
     }
 
+    private Drawable loadIcon() {
+        if (resolveInfo != null) {
+            return resolveInfo.loadIcon(packageManager);
+        }
+
+        ComponentName componentName = launchIntent.getComponent();
+        if (componentName != null) {
+            try {
+                return packageManager.getActivityIcon(componentName);
+            } catch (PackageManager.NameNotFoundException e) {
+                Timber.w(e, "Activity gone, using default icon: %s", componentName);
+            }
+        }
+        return packageManager.getDefaultActivityIcon();
+    }
+
     @Override
     @Nullable
     protected CaseInsensitive doGetTrueName() {
@@ -183,14 +227,18 @@ public class IntentLaunchable extends Launchable {
     private static Intent createLaunchIntent(
             ResolveInfo resolveInfo)
     {
-        Intent intent = new Intent(Intent.ACTION_MAIN);
-        intent.addCategory(Intent.CATEGORY_LAUNCHER);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED);
-
         ActivityInfo activityInfo = resolveInfo.activityInfo;
         ComponentName componentName =
                 new ComponentName(activityInfo.applicationInfo.packageName, activityInfo.name);
 
+        return createLaunchIntent(componentName);
+    }
+
+    private static Intent createLaunchIntent(ComponentName componentName) {
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED);
+
         intent.setComponent(componentName);
 
         return intent;
@@ -219,9 +267,47 @@ public class IntentLaunchable extends Launchable {
         return launchIntent;
     }
 
+    /**
+     * @return The package of the activity we launch, or null if unknown
+     */
+    @Nullable
+    @Override
+    String getPackageName() {
+        if (launchIntent == null) {
+            return null;
+        }
+
+        ComponentName componentName = launchIntent.getComponent();
+        if (componentName == null) {
+            return null;
+        }
+        return componentName.getPackageName();
+    }
+
     @Nullable
     @Override
     public Intent getAppInfoIntent() {
         return null;
     }
+
+    @Nullable
+    @Override
+    LaunchableSnapshot.Entry createSnapshotEntry() {
+        return createSnapshotEntry(LaunchableSnapshot.TYPE_INTENT);
+    }
+
+    @Nullable
+    protected LaunchableSnapshot.Entry createSnapshotEntry(byte type) {
+        if (launchIntent == null) {
+            return null;
+        }
+
+        ComponentName componentName = launchIntent.getComponent();
+        if (componentName == null) {
+            return null;
+        }
+
+        return LaunchableSnapshot.Entry.forComponent(
+                type, componentName.getPackageName(), componentName.getClassName());
+    }
 }
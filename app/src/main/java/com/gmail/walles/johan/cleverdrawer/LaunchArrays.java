@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+/**
+ * A {@link LaunchLog} backed by parallel arrays.
+ */
+class LaunchArrays implements LaunchLog {
+    private final int[] idIndices;
+    private final long[] timestamps;
+    private final int size;
+
+    LaunchArrays(int[] idIndices, long[] timestamps, int size) {
+        this.idIndices = idIndices;
+        this.timestamps = timestamps;
+        this.size = size;
+    }
+
+    static LaunchArrays fromMetadata(
+            Iterable<DatabaseUtils.LaunchMetadata> launches, LaunchableIds launchableIds)
+    {
+        int size = 0;
+        for (DatabaseUtils.LaunchMetadata ignored: launches) {
+            size++;
+        }
+
+        int[] idIndices = new int[size];
+        long[] timestamps = new long[size];
+        int i = 0;
+        for (DatabaseUtils.LaunchMetadata launch: launches) {
+            idIndices[i] = launchableIds.intern(launch.id);
+            timestamps[i] = launch.timestamp;
+            i++;
+        }
+
+        return new LaunchArrays(idIndices, timestamps, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getIdIndex(int i) {
+        return idIndices[i];
+    }
+
+    @Override
+    public long getTimestamp(int i) {
+        return timestamps[i];
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * The {@link #MAX_LAUNCHES} most recent launches, in a memory mapped ring buffer.
+ * <p>
+ * The file starts with a small header, followed by one fixed size slot per launch holding the
+ * {@link LaunchableIds} index of what was launched plus a timestamp. Appending a launch writes one
+ * slot and updates the header, and reading is done straight from the mapped pages.
+ */
+class LaunchHistory {
+    /**
+     * Keep track of at most this many launches.
+     */
+    static final int MAX_LAUNCHES = 1500;
+
+    private static final int MAGIC = 0x43444c48; // "CDLH"
+    private static final int VERSION = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+
+    /**
+     * Slot number of the oldest launch.
+     */
+    private static final int HEAD_OFFSET = 12;
+
+    /**
+     * Number of slots in use.
+     */
+    private static final int COUNT_OFFSET = 16;
+
+    /**
+     * Number of launches ever appended, including the ones that have since fallen out.
+     */
+    private static final int APPEND_COUNT_OFFSET = 24;
+
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * One int for the launchable ID index, one long for the timestamp.
+     */
+    private static final int SLOT_SIZE = 4 + 8;
+
+    private final File file;
+    private final LaunchableIds launchableIds;
+
+    /**
+     * Launches from here will be imported if we don't have a history file yet.
+     */
+    @Nullable
+    private final File legacyFile;
+
+    @Nullable
+    private MappedByteBuffer buffer;
+
+    /**
+     * A view of the launches in a {@link LaunchHistory} at the time the view was created.
+     * <p>
+     * Reads go straight to the mapped file. If more launches are appended after the view was
+     * created, the oldest launches in the view may be replaced by newer ones, but the newest
+     * launches stay valid until the history has wrapped around.
+     */
+    private static class View implements LaunchLog {
+        private final MappedByteBuffer buffer;
+        private final int head;
+        private final int size;
+
+        private View(MappedByteBuffer buffer, int head, int size) {
+            this.buffer = buffer;
+            this.head = head;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int getIdIndex(int i) {
+            return buffer.getInt(slotOffset(slotNumber(i)));
+        }
+
+        @Override
+        public long getTimestamp(int i) {
+            return buffer.getLong(slotOffset(slotNumber(i)) + 4);
+        }
+
+        private int slotNumber(int i) {
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index " + i + " not in [0, " + size + ")");
+            }
+            return (head + i) % MAX_LAUNCHES;
+        }
+    }
+
+    LaunchHistory(File file, LaunchableIds launchableIds, @Nullable File legacyFile) {
+        this.file = file;
+        this.launchableIds = launchableIds;
+        this.legacyFile = legacyFile;
+    }
+
+    LaunchableIds getLaunchableIds() {
+        return launchableIds;
+    }
+
+    synchronized void append(String id, long timestamp) throws IOException {
+        append(launchableIds.intern(id), timestamp);
+    }
+
+    /**
+     * @param idIndex An index from {@link #getLaunchableIds()}
+     */
+    synchronized void append(int idIndex, long timestamp) throws IOException {
+        MappedByteBuffer buffer = getBuffer();
+
+        // Our index must be on disk before we refer to it from the history
+        launchableIds.persist();
+
+        append(buffer, idIndex, timestamp);
+    }
+
+    /**
+     * Write appended launches all the way to storage.
+     * <p>
+     * Without this, appended launches survive us crashing or getting killed but not necessarily
+     * the device losing power.
+     */
+    synchronized void sync() throws IOException {
+        getBuffer().force();
+    }
+
+    private static void append(MappedByteBuffer buffer, int index, long timestamp) {
+        int head = buffer.getInt(HEAD_OFFSET);
+        int count = buffer.getInt(COUNT_OFFSET);
+
+        int slotOffset = slotOffset((head + count) % MAX_LAUNCHES);
+        buffer.putInt(slotOffset, index);
+        buffer.putLong(slotOffset + 4, timestamp);
+
+        // Update the header only after the slot is complete. While there's room, a crash in
+        // between just loses this launch. When full, the slot we wrote was the oldest launch's,
+        // so a crash in between replaces the oldest launch with this one, leaving it first in
+        // line to fall out. That's at the far end from the scoring window, so it doesn't affect
+        // scores. Moving the head first would be worse: the oldest launch would then look like
+        // the newest one.
+        if (count < MAX_LAUNCHES) {
+            buffer.putInt(COUNT_OFFSET, count + 1);
+        } else {
+            // Full, we just replaced the oldest launch
+            buffer.putInt(HEAD_OFFSET, (head + 1) % MAX_LAUNCHES);
+        }
+        buffer.putLong(APPEND_COUNT_OFFSET, buffer.getLong(APPEND_COUNT_OFFSET) + 1);
+    }
+
+    /**
+     * Get a zero-copy view of the current launches, oldest first.
+     * <p>
+     * Note that the view can contain ID indices that are unknown to {@link #getLaunchableIds()}
+     * if the IDs file has been lost, callers need to handle that.
+     */
+    synchronized LaunchLog getLaunches() {
+        MappedByteBuffer buffer;
+        try {
+            buffer = getBuffer();
+        } catch (IOException e) {
+            Timber.w(e, "Error reading launch history, pretending it is empty");
+            return new LaunchArrays(new int[0], new long[0], 0);
+        }
+
+        return new View(buffer, buffer.getInt(HEAD_OFFSET), buffer.getInt(COUNT_OFFSET));
+    }
+
+    /**
+     * Number of launches ever appended, including the ones that have since fallen out of the
+     * history.
+     */
+    synchronized long getAppendCount() {
+        try {
+            return getBuffer().getLong(APPEND_COUNT_OFFSET);
+        } catch (IOException e) {
+            Timber.w(e, "Error reading launch history, pretending it is empty");
+            return 0;
+        }
+    }
+
+    /**
+     * Load all launches into a list, oldest first.
+     */
+    List<DatabaseUtils.LaunchMetadata> load() {
+        LaunchLog launches = getLaunches();
+        int idCount = launchableIds.size();
+        List<DatabaseUtils.LaunchMetadata> returnMe = new ArrayList<>(launches.size());
+        for (int i = 0; i < launches.size(); i++) {
+            int index = launches.getIdIndex(i);
+            if (index < 0 || index >= idCount) {
+                Timber.w("Launch history refers to unknown ID index %d, skipping", index);
+                continue;
+            }
+
+            DatabaseUtils.LaunchMetadata launch = new DatabaseUtils.LaunchMetadata();
+            launch.id = launchableIds.getId(index);
+            launch.timestamp = launches.getTimestamp(i);
+            returnMe.add(launch);
+        }
+
+        return returnMe;
+    }
+
+    private static int slotOffset(int slotNumber) {
+        return HEADER_SIZE + slotNumber * SLOT_SIZE;
+    }
+
+    private MappedByteBuffer getBuffer() throws IOException {
+        if (buffer != null) {
+            return buffer;
+        }
+
+        // If the IDs file is broken, our file gets deleted when the IDs start over. Have that
+        // happen before we map our file.
+        launchableIds.size();
+
+        boolean isNew = !file.exists();
+        int size = slotOffset(MAX_LAUNCHES);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            if (randomAccessFile.length() != size) {
+                randomAccessFile.setLength(size);
+            }
+
+            // The mapping stays valid after the file has been closed
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        if (!isValid(buffer)) {
+            if (!isNew) {
+                Timber.w("Launch history file was invalid, starting over: %s", file);
+            }
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, MAX_LAUNCHES);
+            buffer.putInt(HEAD_OFFSET, 0);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putLong(APPEND_COUNT_OFFSET, 0);
+        }
+
+        if (isNew) {
+            migrate(buffer);
+        }
+
+        return buffer;
+    }
+
+    private static boolean isValid(MappedByteBuffer buffer) {
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            return false;
+        }
+        if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+            return false;
+        }
+        if (buffer.getInt(CAPACITY_OFFSET) != MAX_LAUNCHES) {
+            return false;
+        }
+
+        int head = buffer.getInt(HEAD_OFFSET);
+        if (head < 0 || head >= MAX_LAUNCHES) {
+            return false;
+        }
+
+        int count = buffer.getInt(COUNT_OFFSET);
+        return count >= 0 && count <= MAX_LAUNCHES;
+    }
+
+    /**
+     * Import launches from our legacy JSON file into a newly created history.
+     */
+    private void migrate(MappedByteBuffer buffer) throws IOException {
+        if (legacyFile == null || !legacyFile.exists()) {
+            return;
+        }
+
+        Timer timer = new Timer();
+        timer.addLeg("Decoding legacy launch history");
+        LaunchArrays launches;
+        try (InputStream legacyStream = new BufferedInputStream(new FileInputStream(legacyFile))) {
+            launches = DatabaseUtils.decodeLaunches(legacyStream, launchableIds, MAX_LAUNCHES);
+        } catch (IOException e) {
+            Timber.w(e, "Error reading legacy launch history, not migrating it");
+            return;
+        }
+
+        // Our indices must be on disk before we refer to them from the history
+        timer.addLeg("Persisting launchable IDs");
+        launchableIds.persist();
+
+        timer.addLeg("Filling in launch history");
+        for (int i = 0; i < launches.size(); i++) {
+            append(buffer, launches.getIdIndex(i), launches.getTimestamp(i));
+        }
+        buffer.force();
+
+        if (!legacyFile.delete()) {
+            Timber.w("Unable to delete legacy launch history file: %s", legacyFile);
+        }
+
+        Timber.i("Migrating %d launches from %s took: %s", launches.size(), legacyFile, timer);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * Records launches without making the caller wait for the disk.
+ * <p>
+ * Launches are appended to the memory mapped {@link LaunchHistory} right away, so they survive
+ * the app being killed. Only the slow {@link LaunchHistory#sync()} happens on a background thread.
+ * Whatever has been appended while the writer was busy gets synced together.
+ * <p>
+ * The recorder also keeps a {@link ScoreTable} up to date with the history, and saves it after each
+ * sync.
+ */
+class LaunchRecorder {
+    private final LaunchHistory launchHistory;
+    private final File scoreTableFile;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "Launch Recorder"));
+
+    /**
+     * Launches appended since the writer last started syncing, guarded by this. If this is
+     * non-zero a sync is scheduled.
+     */
+    private int unsynced;
+
+    /**
+     * Scores for the launches in {@link #launchHistory}, guarded by this. Loaded on first use.
+     */
+    @Nullable
+    private ScoreTable scoreTable;
+
+    LaunchRecorder(LaunchHistory launchHistory, File scoreTableFile) {
+        this.launchHistory = launchHistory;
+        this.scoreTableFile = scoreTableFile;
+    }
+
+    LaunchHistory getLaunchHistory() {
+        return launchHistory;
+    }
+
+    LaunchableIds getLaunchableIds() {
+        return launchHistory.getLaunchableIds();
+    }
+
+    /**
+     * Register that this launchable has been launched.
+     */
+    void record(Launchable launchable) {
+        record(launchable.getId(), System.currentTimeMillis());
+    }
+
+    void record(String id, long timestamp) {
+        int idIndex = getLaunchableIds().intern(id);
+        synchronized (this) {
+            try {
+                launchHistory.append(idIndex, timestamp);
+            } catch (IOException e) {
+                Timber.w(e, "Failed to record launch of %s", id);
+                return;
+            }
+
+            unsynced++;
+            if (unsynced > 1) {
+                // A sync is already scheduled, it will cover this one as well
+                return;
+            }
+        }
+
+        writer.execute(this::sync);
+    }
+
+    private void sync() {
+        Timer timer = new Timer();
+        timer.addLeg("Scoring");
+        int count;
+        ScoreTable updatedScores;
+        synchronized (this) {
+            count = unsynced;
+            unsynced = 0;
+
+            updatedScores = getScores();
+        }
+
+        timer.addLeg("Syncing");
+        try {
+            launchHistory.sync();
+        } catch (IOException e) {
+            Timber.w(e, "Failed to sync launch history");
+        }
+
+        // Save the scores after syncing the history, a score table that's ahead of the history
+        // would have to be recounted
+        timer.addLeg("Saving scores");
+        try {
+            updatedScores.save(scoreTableFile);
+        } catch (IOException e) {
+            Timber.w(e, "Failed to save score table");
+        }
+
+        Timber.i("Syncing %d launch(es) took: %s", count, timer);
+    }
+
+    /**
+     * Block until all launches recorded so far have been synced.
+     */
+    void flush() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException | ExecutionException e) {
+            Timber.w(e, "Waiting for launches to be synced failed");
+        }
+    }
+
+    /**
+     * Get all launches, oldest first.
+     */
+    LaunchLog getLaunches() {
+        return launchHistory.getLaunches();
+    }
+
+    /**
+     * Get scores for all launches, including ones that haven't been synced yet.
+     */
+    synchronized ScoreTable getScores() {
+        ScoreTable scores = getScoreTable();
+        scores.catchUp(launchHistory.getLaunches(), launchHistory.getAppendCount());
+        return scores.copy();
+    }
+
+    private synchronized ScoreTable getScoreTable() {
+        if (scoreTable == null) {
+            scoreTable = ScoreTable.load(scoreTableFile, getLaunchableIds(),
+                    launchHistory.getLaunches(), launchHistory.getAppendCount());
+        }
+        return scoreTable;
+    }
+}
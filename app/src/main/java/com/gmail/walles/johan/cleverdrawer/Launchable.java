@@ -33,10 +33,18 @@ import androidx.annotation.Nullable;
 import timber.log.Timber;
 
 @SuppressWarnings("ComparableImplementedButEqualsNotOverridden")
-public abstract class Launchable implements Comparable<Launchable> {
+public abstract class Launchable implements Comparable<Launchable>, Cloneable {
     private final String id;
     private CaseInsensitive name;
 
+    /**
+     * Our {@link LaunchableIds} index, or {@link LaunchableIds#UNKNOWN} if we don't have one.
+     */
+    private int idIndex = LaunchableIds.UNKNOWN;
+
+    /**
+     * As passed to {@link #setScore(double)}, before applying {@link #getScoreFactor()}.
+     */
     @Nullable
     private Double score;
 
@@ -103,6 +111,13 @@ public abstract class Launchable implements Comparable<Launchable> {
         return null;
     }
 
+    /**
+     * True if this launchable matches the query.
+     * <p>
+     * Note that searching doesn't call this, {@link LaunchableFilter} matches names only. To
+     * match on anything else, for example contact nicknames, the filter and its
+     * {@link FoldedNames} need to know about it.
+     */
     public abstract boolean matches(CaseInsensitiveQuery query);
 
     public void setScore(double score) {
@@ -111,7 +126,22 @@ public abstract class Launchable implements Comparable<Launchable> {
             throw new IllegalArgumentException("score must be > 0, was " + score);
         }
 
-        this.score = score * getScoreFactor();
+        this.score = score;
+    }
+
+    /**
+     * Go back to not having a score, as if {@link #setScore(double)} had never been called.
+     */
+    void clearScore() {
+        this.score = null;
+    }
+
+    /**
+     * @return The score as passed to {@link #setScore(double)}, or null if no score has been set
+     */
+    @Nullable
+    Double getBaseScore() {
+        return score;
     }
 
     protected abstract double getScoreFactor();
@@ -120,11 +150,39 @@ public abstract class Launchable implements Comparable<Launchable> {
         return id;
     }
 
+    public int getIdIndex() {
+        return idIndex;
+    }
+
+    public void setIdIndex(int idIndex) {
+        this.idIndex = idIndex;
+    }
+
     public abstract Intent getLaunchIntent();
 
+    /**
+     * Renaming or rescoring the copy doesn't affect this launchable, so this one can stay on screen
+     * while the copy gets ranked in the background.
+     */
+    Launchable copy() {
+        try {
+            return (Launchable)clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("Launchable is Cloneable", e);
+        }
+    }
+
+    /**
+     * @return The package our true name comes from, or null if we don't come from a package
+     */
+    @Nullable
+    String getPackageName() {
+        return null;
+    }
+
     private double getScore() {
         if (score != null) {
-            return score;
+            return score * getScoreFactor();
         }
         return 1.0 * getScoreFactor();
     }
@@ -156,4 +214,17 @@ public abstract class Launchable implements Comparable<Launchable> {
      */
     @Nullable
     public abstract Intent getAppInfoIntent();
+
+    /**
+     * Describe how to recreate this launchable from a {@link LaunchableSnapshot}.
+     * <p>
+     * The common fields are filled in by {@link LaunchableSnapshot}, subclasses only need to
+     * provide their type and whatever else they need to be recreated.
+     *
+     * @return null if this kind of launchable can't be snapshotted
+     */
+    @Nullable
+    LaunchableSnapshot.Entry createSnapshotEntry() {
+        return null;
+    }
 }
@@ -30,6 +30,8 @@ import android.content.Context;
 import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
 import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -38,37 +40,118 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import java.io.File;
-import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.FutureTask;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.content.ContextCompat;
 import timber.log.Timber;
 
 class LaunchableAdapter extends BaseAdapter {
+    /**
+     * Apps, settings and contacts.
+     */
+    private static final int SOURCE_COUNT = 3;
+
+    /**
+     * How long the search thread stays around after the last search. Must be positive for the
+     * thread to be allowed to time out at all.
+     */
+    private static final long SEARCH_KEEP_ALIVE_SECONDS = 10;
+
+    /**
+     * Shared by all adapters, lazily created.
+     */
+    @Nullable
+    private static ScheduledThreadPoolExecutor searchExecutor;
+
     private final Context context;
-    private final File launchHistoryFile;
-    private final File nameCacheFile;
+    private final MainActivity mainActivity;
+    private final LaunchRecorder launchRecorder;
+    private final LaunchableRepository repository;
+    private final NameCacheWriter nameCache;
     private final File lastOrderFile;
+    private final SnapshotWriter snapshotWriter;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
     private List<Launchable> allLaunchables;
     private List<Launchable> filteredLaunchables;
+    private String filter = "";
+
+    /**
+     * Only used on the search executor thread.
+     */
+    private final LaunchableFilter launchableFilter = new LaunchableFilter();
+
+    /**
+     * How long to wait for more keystrokes before searching.
+     */
+    private final long searchDebounceMs;
+
+    /**
+     * Bumped for every new search, results from older searches are dropped.
+     */
+    private final AtomicLong searchGeneration = new AtomicLong();
+
+    @Nullable
+    private ScheduledFuture<?> pendingSearch;
+
+    /**
+     * The {@link LaunchableRepository#getGeneration()} we're currently loading, or -1 if we aren't
+     * loading anything.
+     */
+    private long loadingGeneration = -1;
+
+    /**
+     * The load in progress, or null if we aren't loading anything.
+     * <p>
+     * This and the other loading state is only touched on the main thread.
+     */
+    @Nullable
+    private Pipeline loading;
+
+    /**
+     * True if another load should start when the current one is done.
+     */
+    private boolean reloadPending;
+
+    /**
+     * True if we're showing launchables from a load that isn't done yet.
+     */
+    private boolean showingPartial;
+
+    /**
+     * True if shown names have changed and we have posted a refresh of the list.
+     */
+    private boolean namesRefreshPosted;
+
+    /**
+     * Gets launchables before loading is done.
+     */
+    interface PartialResultListener {
+        /**
+         * Called on a loader thread with what has been loaded so far, ranked and ready to show.
+         */
+        void onPartialResult(List<Launchable> launchables);
+    }
 
     /**
      * Load a {@link Drawable} from a {@link Launchable} and update the {@link ImageView}.
@@ -98,100 +181,599 @@ class LaunchableAdapter extends BaseAdapter {
         }
     }
 
+    /**
+     * Shows what we had last time, call {@link #reloadIfInvalid()} to get it up to date.
+     */
     public LaunchableAdapter(MainActivity mainActivity,
-            File launchHistoryFile, File nameCacheFile, File lastOrderFile)
+            LaunchRecorder launchRecorder, LaunchableRepository repository,
+            NameCacheWriter nameCache, File lastOrderFile,
+            SnapshotWriter snapshotWriter)
     {
         this.context = mainActivity;
-        this.launchHistoryFile = launchHistoryFile;
-        this.nameCacheFile = nameCacheFile;
+        this.mainActivity = mainActivity;
+        this.searchDebounceMs =
+                mainActivity.getResources().getInteger(R.integer.search_debounce_ms);
+        this.launchRecorder = launchRecorder;
+        this.repository = repository;
+        this.nameCache = nameCache;
         this.lastOrderFile = lastOrderFile;
-        reloadLaunchables();
+        this.snapshotWriter = snapshotWriter;
+
+        List<Launchable> cached = repository.getLaunchables();
+        if (cached != null) {
+            Timber.i("Showing %d launchables from repository", cached.size());
+            setLaunchables(cached);
+        } else {
+            showSnapshotOrLoad();
+        }
 
         mainActivity.setLaunchableAdapter(this);
     }
 
+    private void showSnapshotOrLoad() {
+        // Use the application context, the snapshot launchables can end up in the repository
+        List<Launchable> snapshot =
+                LaunchableSnapshot.load(context.getApplicationContext(),
+                        snapshotWriter.getFile(), launchRecorder.getLaunchableIds());
+        if (snapshot != null) {
+            Timber.i("Showing %d launchables from snapshot", snapshot.size());
+            setLaunchables(snapshot);
+            return;
+        }
+
+        // Start out empty, each kind of launchables will show up as soon as it's loaded
+        setLaunchables(Collections.emptyList());
+        reloadLaunchables();
+    }
+
+    /**
+     * Reload launchables in the background unless what we're showing is known to be up to date.
+     */
+    public void reloadIfInvalid() {
+        repository.pollChangedPackages(context.getPackageManager());
+        if (repository.isValid() && repository.getLaunchables() == allLaunchables) {
+            return;
+        }
+
+        reloadLaunchables();
+    }
+
+    /**
+     * Reload launchables in the background and update the list when done.
+     * <p>
+     * Never blocks. If a load of an older generation is already running it gets cancelled, and a
+     * new load starts when it has stopped. Requests coming in while waiting for that are
+     * coalesced into the same new load.
+     */
     public void reloadLaunchables() {
-        allLaunchables = loadLaunchables(context, nameCacheFile, launchHistoryFile, lastOrderFile);
-        filteredLaunchables = allLaunchables;
-        notifyDataSetChanged();
+        if (loading == null) {
+            startLoading();
+            return;
+        }
+
+        long generation = repository.getGeneration();
+        if (generation == loadingGeneration) {
+            Timber.i("Already loading generation %d", generation);
+            return;
+        }
+
+        if (!reloadPending) {
+            Timber.i("Generation %d superseded by %d, cancelling", loadingGeneration, generation);
+            loading.cancel();
+            reloadPending = true;
+        }
     }
 
-    static List<Launchable> loadLaunchables(Context context,
-            File nameCacheFile, File launchHistoryFile, File lastOrderFile)
-    {
-        Timer timer = new Timer();
-        ExecutorService executor = new ThreadPoolExecutor(
-                2,
-                4,
-                500, TimeUnit.MILLISECONDS,
-                new ArrayBlockingQueue<>(5));
-
-        FutureTask<List<Launchable>> loadIntentLaunchables = new FutureTask<>(
-                () -> IntentLaunchable.loadLaunchables(context));
-        executor.submit(loadIntentLaunchables);
-
-        FutureTask<Map<String, String>> readCache = new FutureTask<>(
-                () -> DatabaseUtils.readIdToNameCache(nameCacheFile));
-        executor.submit(readCache);
-
-        FutureTask<List<DatabaseUtils.LaunchMetadata>> loadLaunchHistory = new FutureTask<>(
-                () -> DatabaseUtils.loadLaunches(launchHistoryFile));
-        executor.submit(loadLaunchHistory);
-
-        List<Launchable> launchables = new ArrayList<>();
-        if (ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CONTACTS)
-                == PackageManager.PERMISSION_GRANTED)
-        {
-            timer.addLeg("Add ContactLaunchables");
-            launchables.addAll(ContactLaunchable.loadLaunchables(context));
+    /**
+     * Stop loading and don't start any new loads, for when our activity goes away.
+     */
+    public void cancelLoading() {
+        reloadPending = false;
+        if (loading != null) {
+            Timber.i("Cancelling generation %d", loadingGeneration);
+            loading.cancel();
+        }
+    }
+
+    private void startLoading() {
+        long generation = repository.getGeneration();
+        loadingGeneration = generation;
+
+        // If we're showing what's in the repository and only packages have changed, just reload
+        // those packages
+        Set<String> changedPackages = repository.getChangedPackages();
+        List<Launchable> current = allLaunchables;
+        boolean patch = changedPackages != null && current == repository.getLaunchables();
+
+        Pipeline pipeline = new Pipeline("Generation " + generation);
+        loading = pipeline;
+        updateLoadingIndicator();
+
+        // Use the application context, what we load will be kept in the repository
+        Context applicationContext = context.getApplicationContext();
+        Pipeline.Stage<List<Launchable>> loaded;
+        if (patch) {
+            loaded = addPatchingStages(applicationContext, pipeline, current,
+                    changedPackages, nameCache, launchRecorder, lastOrderFile, snapshotWriter);
         } else {
-            Timber.w("READ_CONTACTS permission not granted (yet?), contacts not loaded");
+            loaded = addLoadingStages(applicationContext, pipeline,
+                    nameCache, launchRecorder, lastOrderFile, snapshotWriter,
+                    partial -> mainHandler.post(
+                            () -> onPartialLaunchablesLoaded(partial, pipeline)),
+                    this::onTrueNameResolved);
+        }
+
+        pipeline.setOnStopped(
+                () -> mainHandler.post(() -> onLoadingDone(loaded, generation, pipeline)));
+        pipeline.start();
+    }
+
+    private void onPartialLaunchablesLoaded(List<Launchable> partial, Pipeline pipeline) {
+        if (pipeline != loading || pipeline.isCancelled()) {
+            // Already done or superseded
+            return;
+        }
+        if (!allLaunchables.isEmpty() && !showingPartial) {
+            // Better keep showing what we have than showing only part of it
+            return;
+        }
+
+        Timber.i("Showing %d partially loaded launchables", partial.size());
+        showingPartial = true;
+        setLaunchables(partial);
+    }
+
+    /**
+     * Called on the main thread when the loading pipeline has stopped.
+     *
+     * @param loaded The final loading stage, not done if the load was cancelled
+     */
+    private void onLoadingDone(
+            Pipeline.Stage<List<Launchable>> loaded, long generation, Pipeline pipeline)
+    {
+        loading = null;
+        loadingGeneration = -1;
+
+        // Only publish the newest result, a superseded one could overwrite newer launchables
+        if (pipeline.isCancelled()) {
+            Timber.i("Load cancelled: %s", pipeline);
+        } else if (loaded.isDone()) {
+            onLaunchablesLoaded(loaded.get(), generation);
+        }
+
+        if (reloadPending) {
+            reloadPending = false;
+            startLoading();
+        }
+        updateLoadingIndicator();
+    }
+
+    /**
+     * Only show the loading indicator if we have nothing or only part of something to show.
+     * <p>
+     * Reloading in the background while showing a complete list is too common to be worth
+     * pointing out.
+     */
+    private void updateLoadingIndicator() {
+        mainActivity.setLoading(loading != null && (allLaunchables.isEmpty() || showingPartial));
+    }
+
+    private void onLaunchablesLoaded(List<Launchable> loaded, long generation) {
+        showingPartial = false;
+        List<Launchable> updated = reuseUnchanged(allLaunchables, loaded);
+        if (!repository.setLaunchables(updated, generation)) {
+            // Some other activity has already loaded something newer, show that instead
+            updated = repository.getLaunchables();
+        }
+        if (updated == allLaunchables) {
+            Timber.i("Loaded launchables are the same as the shown ones");
+            return;
+        }
+
+        setLaunchables(updated);
+    }
+
+    private void setLaunchables(List<Launchable> launchables) {
+        allLaunchables = launchables;
+        getSearchExecutor().execute(() -> launchableFilter.prepare(launchables));
+        setFilter(filter);
+        updateLoadingIndicator();
+    }
+
+    /**
+     * Called on a {@link NameResolver} thread when the names cache has resolved a true name.
+     */
+    private void onTrueNameResolved(Launchable launchable, @Nullable CaseInsensitive trueName,
+            int resolvedCount, int totalCount)
+    {
+        if (resolvedCount == totalCount) {
+            Timber.i("All %d stale names resolved", totalCount);
         }
 
-        timer.addLeg("Add IntentLaunchables");
-        try {
-            launchables.addAll(loadIntentLaunchables.get());
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Loading Intent Launchables failed", e);
+        if (trueName == null) {
+            return;
+        }
+        CaseInsensitive staleName = launchable.getName();
+        if (staleName.equals(trueName)) {
+            return;
         }
 
-        timer.addLeg("Dropping duplicate IDs");
-        dropDuplicateIds(launchables);
+        String id = launchable.getId();
+        mainHandler.post(() -> showTrueName(id, staleName, trueName));
+    }
+
+    /**
+     * Rename shown launchables that still have a stale name.
+     * <p>
+     * Launchables renamed by {@link Uniquifier} don't have the stale name and are left alone, they
+     * will get their true names on the next load.
+     */
+    private void showTrueName(String id, CaseInsensitive staleName, CaseInsensitive trueName) {
+        for (Launchable launchable: allLaunchables) {
+            if (!launchable.getId().equals(id) || !launchable.getName().equals(staleName)) {
+                continue;
+            }
 
-        timer.addLeg("Applying names from cache");
-        try {
-            DatabaseUtils.nameLaunchablesFromCache(readCache.get(), launchables);
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Reading names cache failed", e);
+            launchable.setName(trueName);
+            if (!namesRefreshPosted) {
+                // Refresh once for a whole batch of names
+                namesRefreshPosted = true;
+                mainHandler.post(() -> {
+                    namesRefreshPosted = false;
+                    getSearchExecutor().execute(launchableFilter::reset);
+                    setFilter(filter);
+                });
+            }
         }
+    }
 
-        timer.addLeg("Dropping unnamed");
-        dropUnnamed(launchables);
+    /**
+     * Merge freshly loaded launchables into the ones we're showing.
+     * <p>
+     * Shown launchables that are unchanged in the loaded list are kept, so that they keep their
+     * already loaded icons.
+     *
+     * @return {@code shown} if nothing changed, or a list in the loaded order with unchanged
+     * launchables taken from {@code shown}
+     */
+    static List<Launchable> reuseUnchanged(List<Launchable> shown, List<Launchable> loaded) {
+        Map<String, Launchable> shownById = new HashMap<>();
+        for (Launchable launchable: shown) {
+            shownById.put(launchable.getId(), launchable);
+        }
 
-        timer.addLeg("Uniquifying names");
-        new Uniquifier().uniquify(launchables);
+        boolean changed = shown.size() != loaded.size();
+        List<Launchable> merged = new ArrayList<>(loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            Launchable fresh = loaded.get(i);
+            Launchable old = shownById.get(fresh.getId());
+            if (old == null || !isUnchanged(old, fresh)) {
+                merged.add(fresh);
+                changed = true;
+                continue;
+            }
 
-        timer.addLeg("Logging name dups");
-        logDuplicateNames(launchables);
+            merged.add(old);
+            if (!changed && shown.get(i) != old) {
+                // Same launchable, new position
+                changed = true;
+            }
+        }
 
-        timer.addLeg("Sorting Launchables");
-        try {
-            DatabaseUtils.scoreLaunchables(launchables, loadLaunchHistory.get());
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Loading launch history failed", e);
+        return changed ? merged : shown;
+    }
+
+    private static boolean isUnchanged(Launchable old, Launchable fresh) {
+        return old.getClass().equals(fresh.getClass())
+                && old.getIdIndex() == fresh.getIdIndex()
+                && old.getName().equals(fresh.getName())
+                && Objects.equals(old.getBaseScore(), fresh.getBaseScore());
+    }
+
+    /**
+     * Load and rank all launchables, blocking until done.
+     *
+     * @see #addLoadingStages
+     * @throws CancellationException if the pipeline was cancelled
+     */
+    static List<Launchable> loadLaunchables(Context context, Pipeline pipeline,
+            NameCacheWriter nameCache, LaunchRecorder launchRecorder, File lastOrderFile,
+            SnapshotWriter snapshotWriter, @Nullable PartialResultListener partialListener,
+            @Nullable NameResolver.Listener nameListener)
+    {
+        warnIfMainThread("loadLaunchables()");
+        Pipeline.Stage<List<Launchable>> loaded = addLoadingStages(context, pipeline,
+                nameCache, launchRecorder, lastOrderFile, snapshotWriter,
+                partialListener, nameListener);
+        pipeline.start();
+        return loaded.get();
+    }
+
+    /**
+     * Add stages loading and ranking all launchables to a pipeline that hasn't been started yet.
+     * <p>
+     * Apps, settings and contacts are loaded in parallel, and ranked one source at a time as they
+     * are done.
+     *
+     * @param pipeline Runs the loading stages. Cancel it to stop loading.
+     * @param partialListener Gets what has been ranked so far after each source but the last
+     * @param nameListener Gets told about stale cached names as they are resolved in the
+     *                     background, after the loading stages are done
+     * @return The final stage, with all launchables ranked and the order, snapshot and names
+     * cache updated
+     */
+    static Pipeline.Stage<List<Launchable>> addLoadingStages(Context context, Pipeline pipeline,
+            NameCacheWriter nameCache, LaunchRecorder launchRecorder, File lastOrderFile,
+            SnapshotWriter snapshotWriter, @Nullable PartialResultListener partialListener,
+            @Nullable NameResolver.Listener nameListener)
+    {
+        LaunchableIds launchableIds = launchRecorder.getLaunchableIds();
+
+        Pipeline.Stage<NameCacheFile.View> cachedNames = pipeline.addStage("Reading names cache",
+                nameCache::map, NameCacheFile::empty);
+
+        Pipeline.Stage<ScoreTable> scores = pipeline.addStage("Loading scores",
+                launchRecorder::getScores, () -> new ScoreTable(launchableIds));
+
+        Pipeline.Stage<IncrementalRanker> ranker = pipeline.addStage("Loading last order",
+                () -> new IncrementalRanker(scores.get(),
+                        StabilityUtils.loadIdOrder(lastOrderFile, launchableIds),
+                        SOURCE_COUNT, partialListener),
+                () -> new IncrementalRanker(scores.get(), new int[0],
+                        SOURCE_COUNT, partialListener),
+                scores);
+
+        List<Pipeline.Stage<List<Launchable>>> sources = new ArrayList<>(SOURCE_COUNT);
+        // In priority order, for when several sources have launchables with the same ID
+        sources.add(addSourceStages(pipeline, "Apps", 0,
+                () -> AppLaunchable.loadAppLaunchables(context, null),
+                launchableIds, cachedNames, scores, ranker));
+        sources.add(addSourceStages(pipeline, "Settings", 1,
+                () -> IntentLaunchable.loadSettingsLaunchables(context, null),
+                launchableIds, cachedNames, scores, ranker));
+        sources.add(addSourceStages(pipeline, "Contacts", 2,
+                () -> loadContactLaunchables(context),
+                launchableIds, cachedNames, scores, ranker));
+
+        List<Pipeline.Stage<?>> dependencies = new ArrayList<>(sources);
+        dependencies.add(ranker);
+        return pipeline.addStage("Storing results",
+                () -> {
+                    List<Launchable> launchables = ranker.get().getLaunchables();
+
+                    Timer timer = new Timer();
+                    timer.addLeg("Logging name dups");
+                    logDuplicateNames(launchables);
+
+                    timer.addLeg("Storing order");
+                    StabilityUtils.storeOrder(lastOrderFile, launchables);
+
+                    timer.addLeg("Updating snapshot");
+                    snapshotWriter.save(launchables);
+
+                    timer.addLeg("Updating names cache");
+                    nameCache.cacheTrueNames(launchables,
+                            PackageVersion.lookupFrom(context.getPackageManager()), nameListener);
+
+                    Timber.i("Loading stage timings: %s", pipeline);
+                    Timber.i("Storing loading results timings: %s", timer);
+
+                    return launchables;
+                },
+                () -> ranker.get().getLaunchables(),
+                dependencies.toArray(new Pipeline.Stage<?>[0]));
+    }
+
+    /**
+     * Add stages loading, naming and ranking the launchables from one source.
+     *
+     * @param sourceIndex For {@link IncrementalRanker#add(int, Collection)}
+     * @return The final stage, with everything ranked so far
+     */
+    private static Pipeline.Stage<List<Launchable>> addSourceStages(Pipeline pipeline,
+            String source, int sourceIndex, Pipeline.Work<Collection<Launchable>> load,
+            LaunchableIds launchableIds, Pipeline.Stage<NameCacheFile.View> cachedNames,
+            Pipeline.Stage<ScoreTable> scores, Pipeline.Stage<IncrementalRanker> ranker)
+    {
+        Pipeline.Stage<List<Launchable>> loaded = pipeline.addStage(source + ": Loading",
+                () -> {
+                    List<Launchable> launchables = new ArrayList<>(load.run());
+                    indexIds(launchableIds, launchables);
+                    return launchables;
+                },
+                Collections::emptyList);
+
+        Pipeline.Stage<List<Launchable>> named = pipeline.addStage(source + ": Naming",
+                () -> {
+                    List<Launchable> launchables = loaded.get();
+                    DatabaseUtils.nameLaunchablesFromCache(cachedNames.get(), launchables);
+                    resolveUncachedNames(launchables, scores.get());
+                    return launchables;
+                },
+                loaded::get,
+                loaded, cachedNames, scores);
+
+        return pipeline.addStage(source + ": Ranking",
+                () -> ranker.get().add(sourceIndex, named.get()),
+                // IncrementalRanker.getLaunchables() will do without this source
+                Collections::emptyList,
+                named, ranker);
+    }
+
+    /**
+     * Like {@link #addLoadingStages}, but only reload the launchables from some packages.
+     *
+     * @param pipeline Runs the patching stages. Cancel it to stop patching.
+     * @param current A list previously loaded by one of these methods, it won't be modified
+     * @param packageNames Launchables from these packages will be replaced, everything else is
+     *                     kept as it is
+     * @return The final stage, with all launchables ranked and the order, snapshot and names
+     * cache updated
+     */
+    static Pipeline.Stage<List<Launchable>> addPatchingStages(Context context, Pipeline pipeline,
+            List<Launchable> current, Set<String> packageNames, NameCacheWriter nameCache,
+            LaunchRecorder launchRecorder, File lastOrderFile, SnapshotWriter snapshotWriter)
+    {
+        LaunchableIds launchableIds = launchRecorder.getLaunchableIds();
+
+        Pipeline.Stage<List<Launchable>> changed = pipeline.addStage("Loading changed packages",
+                () -> {
+                    List<Launchable> launchables = new ArrayList<>();
+                    for (String packageName: packageNames) {
+                        launchables.addAll(IntentLaunchable.loadLaunchables(context, packageName));
+                    }
+                    indexIds(launchableIds, launchables);
+
+                    CaseInsensitive[] trueNames = NameResolver.resolve(launchables, null);
+                    for (int i = 0; i < trueNames.length; i++) {
+                        if (trueNames[i] != null) {
+                            launchables.get(i).setName(trueNames[i]);
+                        }
+                    }
+                    return launchables;
+                },
+                Collections::emptyList);
+
+        Pipeline.Stage<ScoreTable> scores = pipeline.addStage("Loading scores",
+                launchRecorder::getScores, () -> new ScoreTable(launchableIds));
+
+        // Without the changed packages if loading them fails, better than not showing anything
+        Pipeline.Stage<List<Launchable>> merged = pipeline.addStage("Merging changed packages",
+                () -> {
+                    List<Launchable> launchables = new ArrayList<>(current.size());
+                    for (Launchable launchable: current) {
+                        if (packageNames.contains(launchable.getPackageName())) {
+                            continue;
+                        }
+                        launchables.add(launchable);
+                    }
+
+                    launchables.addAll(changed.get());
+                    dropDuplicateIds(launchables);
+                    return launchables;
+                },
+                () -> new ArrayList<>(current),
+                changed);
+
+        Pipeline.Stage<List<Launchable>> ranked =
+                addRankingStages(pipeline, merged, scores, launchableIds, lastOrderFile);
+
+        return pipeline.addStage("Storing results",
+                () -> {
+                    List<Launchable> launchables = ranked.get();
+
+                    Timer timer = new Timer();
+                    timer.addLeg("Storing order");
+                    StabilityUtils.storeOrder(lastOrderFile, launchables);
+
+                    timer.addLeg("Updating snapshot");
+                    snapshotWriter.save(launchables);
+
+                    timer.addLeg("Updating names cache");
+                    nameCache.updateCachedNames(
+                            changed.get(), PackageVersion.lookupFrom(context.getPackageManager()));
+
+                    Timber.i("Patching stage timings for %d package(s): %s",
+                            packageNames.size(), pipeline);
+                    Timber.i("Storing patching results timings: %s", timer);
+
+                    return launchables;
+                },
+                ranked::get,
+                ranked, changed);
+    }
+
+    /**
+     * Loading blocks while waiting for the pipeline, doing that on the main thread risks ANRs.
+     */
+    private static void warnIfMainThread(String what) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            Timber.w(new RuntimeException(what + " called on the main thread"));
         }
-        Collections.sort(launchables);
+    }
 
-        timer.addLeg("Stabilizing Sort Order");
-        launchables = StabilityUtils.stabilize(lastOrderFile, launchables);
-        StabilityUtils.storeOrder(lastOrderFile, launchables);
+    private static Collection<Launchable> loadContactLaunchables(Context context) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CONTACTS)
+                != PackageManager.PERMISSION_GRANTED)
+        {
+            Timber.w("READ_CONTACTS permission not granted (yet?), contacts not loaded");
+            return Collections.emptyList();
+        }
 
-        timer.addLeg("Updating names cache");
-        updateNamesCache(nameCacheFile, launchables);
+        return ContactLaunchable.loadLaunchables(context);
+    }
 
-        Timber.i("loadLaunchables() timings: %s", timer);
+    /**
+     * Give true names to launchables that didn't get any from the names cache.
+     * <p>
+     * The most launched launchables will end up at the top of the list, so they are resolved first.
+     */
+    private static void resolveUncachedNames(List<Launchable> launchables, ScoreTable scores) {
+        List<Launchable> unnamed = new ArrayList<>();
+        for (Launchable launchable: launchables) {
+            if (!launchable.hasName()) {
+                unnamed.add(launchable);
+            }
+        }
+        if (unnamed.isEmpty()) {
+            return;
+        }
+
+        Collections.sort(unnamed, (a, b) -> Integer.compare(
+                scores.getCount(b.getIdIndex()), scores.getCount(a.getIdIndex())));
+        CaseInsensitive[] trueNames = NameResolver.resolve(unnamed, null);
+        for (int i = 0; i < trueNames.length; i++) {
+            if (trueNames[i] != null) {
+                unnamed.get(i).setName(trueNames[i]);
+            }
+        }
+        Timber.i("%d uncached names resolved", unnamed.size());
+    }
 
-        return launchables;
+    /**
+     * Add stages turning a list of indexed, named and deduplicated launchables into what we want
+     * to show.
+     * <p>
+     * If one of these stages fails, the stages after it get the list as it was before the failing
+     * stage.
+     */
+    private static Pipeline.Stage<List<Launchable>> addRankingStages(Pipeline pipeline,
+            Pipeline.Stage<List<Launchable>> input, Pipeline.Stage<ScoreTable> scores,
+            LaunchableIds launchableIds, File lastOrderFile)
+    {
+        Pipeline.Stage<List<Launchable>> uniquified = pipeline.addStage("Uniquifying names",
+                () -> {
+                    // Copies, the input can be on screen while we rename and rescore
+                    List<Launchable> launchables = copyAll(input.get());
+                    dropUnnamed(launchables);
+                    new Uniquifier().uniquify(launchables);
+                    logDuplicateNames(launchables);
+                    return launchables;
+                },
+                () -> copyAll(input.get()),
+                input);
+
+        Pipeline.Stage<List<Launchable>> scored = pipeline.addStage("Scoring",
+                () -> {
+                    DatabaseUtils.scoreLaunchables(uniquified.get(), scores.get());
+                    return uniquified.get();
+                },
+                uniquified::get,
+                uniquified, scores);
+
+        Pipeline.Stage<List<Launchable>> sorted = pipeline.addStage("Sorting",
+                () -> {
+                    List<Launchable> launchables = new ArrayList<>(scored.get());
+                    Collections.sort(launchables);
+                    return launchables;
+                },
+                scored::get,
+                scored);
+
+        return pipeline.addStage("Stabilizing sort order",
+                () -> StabilityUtils.stabilize(lastOrderFile, launchableIds, sorted.get()),
+                sorted::get,
+                sorted);
     }
 
     private static void logDuplicateNames(List<Launchable> launchables) {
@@ -235,7 +817,18 @@ class LaunchableAdapter extends BaseAdapter {
         }
     }
 
-    private static void dropUnnamed(List<Launchable> launchables) {
+    /**
+     * @see Launchable#copy()
+     */
+    static List<Launchable> copyAll(List<Launchable> launchables) {
+        List<Launchable> copies = new ArrayList<>(launchables.size());
+        for (Launchable launchable: launchables) {
+            copies.add(launchable.copy());
+        }
+        return copies;
+    }
+
+    static void dropUnnamed(List<Launchable> launchables) {
         Iterator<Launchable> iterator = launchables.iterator();
         while (iterator.hasNext()) {
             Launchable launchable = iterator.next();
@@ -249,32 +842,44 @@ class LaunchableAdapter extends BaseAdapter {
         }
     }
 
+    /**
+     * Set the {@link LaunchableIds} index of all launchables.
+     * <p>
+     * Contacts are only looked up, not interned; there can be lots of them and we only need indices
+     * for the ones that have been launched.
+     */
+    private static void indexIds(LaunchableIds launchableIds, List<Launchable> launchables) {
+        for (Launchable launchable: launchables) {
+            if (launchable instanceof ContactLaunchable) {
+                launchable.setIdIndex(launchableIds.lookup(launchable.getId()));
+            } else {
+                launchable.setIdIndex(launchableIds.intern(launchable.getId()));
+            }
+        }
+    }
+
     private static void dropDuplicateIds(List<Launchable> launchables) {
-        Set<String> seenIds = new HashSet<>();
+        BitSet seenIds = new BitSet();
         Iterator<Launchable> iterator = launchables.iterator();
         while (iterator.hasNext()) {
             Launchable launchable = iterator.next();
-            if (seenIds.contains(launchable.getId())) {
+            int idIndex = launchable.getIdIndex();
+            if (idIndex < 0) {
+                // Unindexed contact, contact IDs come from a unique database column so these can't
+                // be duplicates
+                continue;
+            }
+
+            if (seenIds.get(idIndex)) {
                 // Should we print a warning here? All dups we have looked at have been identical,
                 // so just dropping these should be fine.
                 iterator.remove();
             }
 
-            seenIds.add(launchable.getId());
+            seenIds.set(idIndex);
         }
     }
 
-    private static void updateNamesCache(File nameCacheFile, List<Launchable> allLaunchables) {
-        new Thread(() -> {
-            try {
-                DatabaseUtils.cacheTrueNames(nameCacheFile, allLaunchables);
-                Timber.i("True names cached into %s", nameCacheFile.getAbsolutePath());
-            } catch (IOException e) {
-                Timber.w(e, "Caching names failed");
-            }
-        }, "Name Cache Updater").start();
-    }
-
     @Override
     public int getCount() {
         return filteredLaunchables.size();
@@ -311,21 +916,59 @@ class LaunchableAdapter extends BaseAdapter {
         return view;
     }
 
+    @VisibleForTesting
+    static synchronized ScheduledThreadPoolExecutor getSearchExecutor() {
+        if (searchExecutor == null) {
+            searchExecutor = new ScheduledThreadPoolExecutor(
+                    1, runnable -> new Thread(runnable, "Launchable Search"));
+
+            // Don't keep the thread around when nobody is typing, but do keep it between
+            // keystrokes. Setting the keep alive time first is required, allowCoreThreadTimeOut()
+            // throws with the default of zero.
+            searchExecutor.setKeepAliveTime(SEARCH_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            searchExecutor.allowCoreThreadTimeOut(true);
+        }
+        return searchExecutor;
+    }
+
+    /**
+     * Filter the launchables in the background and show the result when done.
+     * <p>
+     * Searches are debounced, and results of searches superseded by later calls are never shown.
+     */
     public void setFilter(CharSequence search) {
-        if (search.length() == 0) {
-            filteredLaunchables = allLaunchables;
+        filter = search.toString();
+        long generation = searchGeneration.incrementAndGet();
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
+            pendingSearch = null;
         }
 
-        List<Launchable> newFilteredList = new LinkedList<>();
-        CaseInsensitiveQuery query = new CaseInsensitiveQuery(search.toString());
-        for (Launchable launchable: allLaunchables) {
-            if (launchable.matches(query)) {
-                newFilteredList.add(launchable);
-            }
+        List<Launchable> launchables = allLaunchables;
+        if (search.length() == 0) {
+            // Nothing to filter
+            filteredLaunchables = launchables;
+            notifyDataSetChanged();
+            return;
         }
 
-        filteredLaunchables = newFilteredList;
+        String query = filter;
+        pendingSearch = getSearchExecutor().schedule(() -> {
+            if (generation != searchGeneration.get()) {
+                return;
+            }
+            List<Launchable> result = launchableFilter.filter(launchables, query);
+            if (generation != searchGeneration.get()) {
+                return;
+            }
 
-        notifyDataSetChanged();
+            mainHandler.post(() -> {
+                if (generation != searchGeneration.get()) {
+                    return;
+                }
+                filteredLaunchables = result;
+                notifyDataSetChanged();
+            });
+        }, searchDebounceMs, TimeUnit.MILLISECONDS);
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Filters launchables by a search string, remembering the previous search.
+ * <p>
+ * When typing, each new search usually narrows down the previous one. In that case only the
+ * previous result needs to be scanned, not all launchables. Otherwise a {@link TrigramIndex} of
+ * the launchables narrows down which ones need checking.
+ * <p>
+ * Names are matched against {@link FoldedNames} prepared once per launchables list. Apart from
+ * the query and the returned list, filtering doesn't allocate anything.
+ * <p>
+ * Not thread safe, use from one thread only.
+ */
+class LaunchableFilter {
+    /**
+     * What {@link #names} and {@link #index} were prepared from.
+     */
+    @Nullable
+    private List<Launchable> launchables;
+
+    @Nullable
+    private FoldedNames names;
+
+    @Nullable
+    private TrigramIndex index;
+
+    /**
+     * Indices of the launchables matching the last query, in the first {@link #lastResultCount}
+     * entries.
+     */
+    private int[] lastResult = new int[0];
+    private int lastResultCount;
+
+    /**
+     * Scratch space for {@link TrigramIndex#getCandidates(CaseInsensitiveQuery, int[])}.
+     */
+    private int[] candidates = new int[0];
+
+    @Nullable
+    private CaseInsensitiveQuery lastQuery;
+
+    /**
+     * How many launchables the last search had to check.
+     */
+    private int checkedCount;
+
+    /**
+     * @return The launchables matching the search, in the same order. Don't modify it.
+     */
+    List<Launchable> filter(List<Launchable> launchables, CharSequence search) {
+        if (search.length() == 0) {
+            // Nothing to narrow down from here
+            lastQuery = null;
+            return launchables;
+        }
+
+        prepare(launchables);
+        assert names != null;
+        assert index != null;
+
+        CaseInsensitiveQuery query = new CaseInsensitiveQuery(search.toString());
+        int count = 0;
+        if (lastQuery != null && query.narrows(lastQuery)) {
+            // Everything matching is in the last result, filter it in place
+            checkedCount = lastResultCount;
+            for (int i = 0; i < lastResultCount; i++) {
+                if (names.matches(lastResult[i], query)) {
+                    lastResult[count++] = lastResult[i];
+                }
+            }
+        } else {
+            int candidateCount = index.getCandidates(query, candidates);
+            if (candidateCount < 0) {
+                checkedCount = names.size();
+                for (int i = 0; i < names.size(); i++) {
+                    if (names.matches(i, query)) {
+                        lastResult[count++] = i;
+                    }
+                }
+            } else {
+                checkedCount = candidateCount;
+                for (int i = 0; i < candidateCount; i++) {
+                    if (names.matches(candidates[i], query)) {
+                        lastResult[count++] = candidates[i];
+                    }
+                }
+            }
+        }
+        lastResultCount = count;
+        lastQuery = query;
+
+        List<Launchable> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(launchables.get(lastResult[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Fold and index the launchables unless already done, so that the first search doesn't have
+     * to.
+     */
+    void prepare(List<Launchable> launchables) {
+        if (launchables == this.launchables
+                && names != null && names.getLocale().equals(Locale.getDefault()))
+        {
+            return;
+        }
+
+        this.launchables = launchables;
+        names = new FoldedNames(launchables);
+        index = new TrigramIndex(names);
+        lastResult = new int[launchables.size()];
+        candidates = new int[launchables.size()];
+        lastQuery = null;
+    }
+
+    /**
+     * Forget the previous search and index, call this when launchable names have changed.
+     */
+    void reset() {
+        launchables = null;
+        names = null;
+        index = null;
+        lastQuery = null;
+    }
+
+    @VisibleForTesting
+    int getCheckedCount() {
+        return checkedCount;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * Maps launchable IDs to small ints and back.
+ * <p>
+ * The mapping is stored in an append-only text file with one ID per line, and the line number is
+ * the index of that ID. Once handed out, an index never changes.
+ * <p>
+ * If the file can't be read, the numbering has to start over. Files holding indices into the old
+ * numbering must be deleted first, or their indices would point to whatever IDs got those indices
+ * next.
+ */
+class LaunchableIds {
+    static final int UNKNOWN = -1;
+
+    @Nullable
+    private final File file;
+
+    /**
+     * Files holding indices from us, deleted if our numbering has to start over.
+     */
+    private final File[] dependents;
+
+    private final List<String> indexToId = new ArrayList<>();
+    private final Map<String, Integer> idToIndex = new HashMap<>();
+
+    /**
+     * This many of our IDs are on disk already.
+     */
+    private int persistedCount;
+
+    private boolean loaded;
+
+    /**
+     * True if our file couldn't be read but some dependents are still around. Then we mustn't
+     * hand out any indices that could end up on disk.
+     */
+    private boolean unusable;
+
+    /**
+     * Create an in-memory only dictionary.
+     */
+    LaunchableIds() {
+        this(null);
+    }
+
+    LaunchableIds(@Nullable File file) {
+        this(file, new File[0]);
+    }
+
+    /**
+     * @param dependents Files holding indices from this dictionary
+     */
+    LaunchableIds(@Nullable File file, File... dependents) {
+        this.file = file;
+        this.dependents = dependents;
+    }
+
+    /**
+     * @return The index of this ID, or {@link #UNKNOWN} if we haven't seen it before
+     */
+    synchronized int lookup(String id) {
+        ensureLoaded();
+
+        Integer index = idToIndex.get(id);
+        if (index == null) {
+            return UNKNOWN;
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of this ID, assigning a new one if needed.
+     * <p>
+     * New indices are only kept in memory until {@link #persist()} is called.
+     */
+    synchronized int intern(String id) {
+        ensureLoaded();
+
+        Integer index = idToIndex.get(id);
+        if (index != null) {
+            return index;
+        }
+
+        index = indexToId.size();
+        indexToId.add(id);
+        idToIndex.put(id, index);
+        return index;
+    }
+
+    synchronized String getId(int index) {
+        ensureLoaded();
+        return indexToId.get(index);
+    }
+
+    synchronized int size() {
+        ensureLoaded();
+        return indexToId.size();
+    }
+
+    /**
+     * Write any newly interned IDs to disk.
+     * <p>
+     * Call this before writing any indices to other files, or those indices won't mean anything
+     * next time we start.
+     */
+    synchronized void persist() throws IOException {
+        ensureLoaded();
+        if (unusable) {
+            throw new IOException("Launchable IDs file unreadable, not adding to it: " + file);
+        }
+        if (file == null) {
+            persistedCount = indexToId.size();
+            return;
+        }
+        if (persistedCount == indexToId.size()) {
+            return;
+        }
+
+        try (Writer writer = new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8))
+        {
+            StringBuilder lines = new StringBuilder();
+            for (int i = persistedCount; i < indexToId.size(); i++) {
+                lines.append(indexToId.get(i)).append('\n');
+            }
+            writer.write(lines.toString());
+        }
+
+        persistedCount = indexToId.size();
+    }
+
+    private void startOver(File file) {
+        for (File dependent: dependents) {
+            if (dependent.exists() && !dependent.delete()) {
+                Timber.w("Unable to delete %s, not starting over with launchable IDs", dependent);
+                unusable = true;
+                return;
+            }
+        }
+
+        if (!file.delete()) {
+            Timber.w("Unable to delete launchable IDs file: %s", file);
+            unusable = true;
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        if (file == null || !file.exists()) {
+            // This is fine, we just haven't interned anything yet
+            return;
+        }
+
+        byte[] bytes;
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            bytes = new byte[(int)input.length()];
+            input.readFully(bytes);
+        } catch (IOException e) {
+            Timber.w(e, "Error reading launchable IDs from %s, starting over", file);
+            startOver(file);
+            return;
+        }
+
+        // Everything after the last newline is a partial line
+        int validLength = bytes.length;
+        while (validLength > 0 && bytes[validLength - 1] != '\n') {
+            validLength--;
+        }
+
+        String lines = new String(bytes, 0, validLength, StandardCharsets.UTF_8);
+        int start = 0;
+        for (int end; (end = lines.indexOf('\n', start)) != -1; start = end + 1) {
+            String id = lines.substring(start, end);
+            idToIndex.put(id, indexToId.size());
+            indexToId.add(id);
+        }
+        persistedCount = indexToId.size();
+
+        if (validLength < bytes.length) {
+            // We probably crashed while appending last time, drop the partial line so that we can
+            // append after it
+            Timber.w("Truncating partial line at the end of %s", file);
+            try (RandomAccessFile truncateMe = new RandomAccessFile(file, "rw")) {
+                truncateMe.setLength(validLength);
+            } catch (IOException e) {
+                Timber.w(e, "Truncating %s failed", file);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ChangedPackages;
+import android.content.pm.PackageManager;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.ContactsContract;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * The most recently loaded launchables, kept for as long as our process lives.
+ * <p>
+ * Our activity gets finished after every launch and recreated when the drawer is opened again.
+ * Keeping the launchables here lets new activity instances show them immediately, with the icons
+ * they have already loaded.
+ * <p>
+ * The launchables stay valid until something that could change them happens: a package change,
+ * a contacts change, a launch or a locale change. If only packages have changed, just the
+ * launchables from those packages need reloading, see {@link #getChangedPackages()}.
+ */
+class LaunchableRepository {
+    @Nullable
+    private List<Launchable> launchables;
+
+    /**
+     * Bumped on every invalidation, so that loads that started before an invalidation don't mark
+     * the repository as valid.
+     */
+    private long generation;
+
+    private long validGeneration = -1;
+
+    /**
+     * The generation our launchables were loaded in. Loads finishing out of order must not replace
+     * newer launchables with older ones.
+     */
+    private long launchablesGeneration = -1;
+
+    /**
+     * Packages changed since our launchables were loaded.
+     */
+    private final Set<String> changedPackages = new HashSet<>();
+
+    /**
+     * True if something other than packages has changed since our launchables were loaded.
+     */
+    private boolean fullReloadNeeded = true;
+
+    /**
+     * For {@link PackageManager#getChangedPackages(int)}, negative until we have one.
+     */
+    private int packagesSequenceNumber = -1;
+
+    /**
+     * False until we are allowed to observe the contacts, guarded by this.
+     */
+    private boolean observingContacts;
+
+    /**
+     * @return null if nothing has been loaded yet
+     */
+    @Nullable
+    synchronized List<Launchable> getLaunchables() {
+        return launchables;
+    }
+
+    /**
+     * If the launchables aren't valid they can still be shown, but should be reloaded.
+     */
+    synchronized boolean isValid() {
+        return launchables != null && validGeneration == generation;
+    }
+
+    /**
+     * Call this before starting a load, and pass the result to
+     * {@link #setLaunchables(List, long)} when done.
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param generation What {@link #getGeneration()} returned before the load started
+     * @return false if we already have launchables from a later load, these are then ignored
+     */
+    synchronized boolean setLaunchables(List<Launchable> launchables, long generation) {
+        if (generation < launchablesGeneration) {
+            Timber.i("Ignoring launchables from generation %d, we have generation %d",
+                    generation, launchablesGeneration);
+            return false;
+        }
+
+        this.launchables = launchables;
+        launchablesGeneration = generation;
+        if (generation == this.generation) {
+            validGeneration = generation;
+            changedPackages.clear();
+            fullReloadNeeded = false;
+        } else {
+            Timber.i("Repository invalidated during load, keeping it invalid");
+        }
+        return true;
+    }
+
+    synchronized void invalidate(String reason) {
+        Timber.i("Launchables invalidated: %s", reason);
+        generation++;
+        fullReloadNeeded = true;
+    }
+
+    synchronized void invalidatePackage(String packageName) {
+        Timber.i("Launchables invalidated by package: %s", packageName);
+        generation++;
+        changedPackages.add(packageName);
+    }
+
+    /**
+     * @return The packages to reload launchables for, or null if everything needs reloading
+     */
+    @Nullable
+    synchronized Set<String> getChangedPackages() {
+        if (launchables == null || fullReloadNeeded) {
+            return null;
+        }
+        return new HashSet<>(changedPackages);
+    }
+
+    /**
+     * Ask the system which packages have changed since last time we asked.
+     * <p>
+     * This catches changes we could have missed broadcasts for, for example while we were frozen
+     * in the background.
+     */
+    synchronized void pollChangedPackages(PackageManager packageManager) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            // getChangedPackages() is API 26+, we'll have to rely on the broadcasts
+            return;
+        }
+
+        ChangedPackages changed =
+                packageManager.getChangedPackages(Math.max(0, packagesSequenceNumber));
+        if (changed == null) {
+            return;
+        }
+
+        boolean firstPoll = packagesSequenceNumber < 0;
+        packagesSequenceNumber = changed.getSequenceNumber();
+        if (firstPoll) {
+            // Changes from before we started don't concern us, we load everything on startup
+            return;
+        }
+
+        for (String packageName: changed.getPackageNames()) {
+            invalidatePackage(packageName);
+        }
+    }
+
+    /**
+     * Start listening for events that invalidate our launchables.
+     *
+     * @param context Should be the application context, since the listeners are never removed
+     */
+    void registerForChanges(Context context) {
+        BroadcastReceiver invalidator = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidate(String.valueOf(intent.getAction()));
+            }
+        };
+
+        BroadcastReceiver packageInvalidator = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Uri data = intent.getData();
+                if (data == null) {
+                    invalidate(String.valueOf(intent.getAction()));
+                    return;
+                }
+                invalidatePackage(data.getSchemeSpecificPart());
+            }
+        };
+
+        IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        context.registerReceiver(packageInvalidator, packageFilter);
+        pollChangedPackages(context.getPackageManager());
+
+        context.registerReceiver(invalidator, new IntentFilter(Intent.ACTION_LOCALE_CHANGED));
+
+        observeContacts(context);
+    }
+
+    /**
+     * Start listening for contacts changes unless already doing so.
+     * <p>
+     * This fails without the contacts permission, so call this again when it gets granted.
+     *
+     * @param context Should be the application context, since the observer is never removed
+     */
+    synchronized void observeContacts(Context context) {
+        if (observingContacts) {
+            return;
+        }
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        ContentObserver contactsObserver = new ContentObserver(mainHandler) {
+            @Override
+            public void onChange(boolean selfChange) {
+                invalidate("Contacts changed");
+            }
+        };
+        try {
+            context.getContentResolver().registerContentObserver(
+                    ContactsContract.Contacts.CONTENT_URI, true, contactsObserver);
+            observingContacts = true;
+        } catch (SecurityException e) {
+            Timber.w(e, "Unable to observe contacts changes");
+        }
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import android.Manifest;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+import timber.log.Timber;
+
+/**
+ * The ranked, uniquified and stabilized list of launchables from last time, in one binary file.
+ * <p>
+ * The snapshot is read with a single read, and recreating launchables from it doesn't involve
+ * querying the system. This makes it possible to show a list before any live data is available.
+ * <p>
+ * The snapshot is just a copy, the launch history, the name cache and the last order file are
+ * still what the live list is computed from. ID indices are looked up again when loading rather
+ * than stored, since the snapshot can outlive the {@link LaunchableIds} it was saved with.
+ */
+class LaunchableSnapshot {
+    private static final int MAGIC = 0x43445353; // "CDSS"
+    private static final int VERSION = 2;
+
+    static final byte TYPE_INTENT = 1;
+    static final byte TYPE_APP = 2;
+    static final byte TYPE_CONTACT = 3;
+
+    /**
+     * Everything needed for recreating one {@link Launchable}.
+     */
+    static class Entry {
+        final byte type;
+
+        String id;
+        String name;
+
+        /**
+         * See {@link Launchable#getBaseScore()}.
+         */
+        @Nullable
+        Double score;
+
+        /**
+         * For {@link #TYPE_INTENT} and {@link #TYPE_APP}.
+         */
+        @Nullable
+        String packageName;
+
+        /**
+         * For {@link #TYPE_INTENT} and {@link #TYPE_APP}.
+         */
+        @Nullable
+        String className;
+
+        /**
+         * For {@link #TYPE_CONTACT}.
+         */
+        long contactId;
+
+        /**
+         * For {@link #TYPE_CONTACT}, null if the contact has no photo.
+         */
+        @Nullable
+        String photoRef;
+
+        @VisibleForTesting
+        Entry(byte type) {
+            this.type = type;
+        }
+
+        static Entry forComponent(byte type, String packageName, String className) {
+            Entry entry = new Entry(type);
+            entry.packageName = packageName;
+            entry.className = className;
+            return entry;
+        }
+
+        static Entry forContact(long contactId, @Nullable String photoRef) {
+            Entry entry = new Entry(TYPE_CONTACT);
+            entry.contactId = contactId;
+            entry.photoRef = photoRef;
+            return entry;
+        }
+    }
+
+    private LaunchableSnapshot() {
+        // Only static methods in here
+    }
+
+    /**
+     * Recreate the launchables from the last {@link #save(File, List)}.
+     *
+     * @return null if there is no snapshot or if it can't be read
+     */
+    @Nullable
+    static List<Launchable> load(Context context, File file, LaunchableIds launchableIds) {
+        List<Entry> entries = read(file);
+        if (entries == null) {
+            return null;
+        }
+        return toLaunchables(context, entries, launchableIds);
+    }
+
+    static void save(File file, List<Launchable> launchables) throws IOException {
+        write(file, toEntries(launchables));
+    }
+
+    static List<Entry> toEntries(List<Launchable> launchables) {
+        List<Entry> entries = new ArrayList<>(launchables.size());
+        for (Launchable launchable: launchables) {
+            Entry entry = launchable.createSnapshotEntry();
+            if (entry == null) {
+                continue;
+            }
+
+            entry.id = launchable.getId();
+            entry.name = launchable.getName().toString();
+            entry.score = launchable.getBaseScore();
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Contacts are left out unless we may still read them.
+     */
+    static List<Launchable> toLaunchables(
+            Context context, List<Entry> entries, LaunchableIds launchableIds)
+    {
+        boolean mayReadContacts =
+                ContextCompat.checkSelfPermission(context, Manifest.permission.READ_CONTACTS)
+                        == PackageManager.PERMISSION_GRANTED;
+        if (!mayReadContacts) {
+            Timber.w("READ_CONTACTS permission not granted, contacts not restored from snapshot");
+        }
+
+        PackageManager packageManager = context.getPackageManager();
+        List<Launchable> launchables = new ArrayList<>(entries.size());
+        for (Entry entry: entries) {
+            if (entry.type == TYPE_CONTACT && !mayReadContacts) {
+                continue;
+            }
+
+            Launchable launchable;
+            switch (entry.type) {
+                case TYPE_INTENT:
+                    launchable = new IntentLaunchable(
+                            new ComponentName(entry.packageName, entry.className), packageManager);
+                    break;
+                case TYPE_APP:
+                    launchable = new AppLaunchable(
+                            new ComponentName(entry.packageName, entry.className), packageManager);
+                    break;
+                case TYPE_CONTACT:
+                    Uri photoRef = entry.photoRef == null ? null : Uri.parse(entry.photoRef);
+                    launchable = new ContactLaunchable(
+                            context, entry.contactId, new CaseInsensitive(entry.name), photoRef);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown snapshot entry type " + entry.type);
+            }
+
+            launchable.setName(new CaseInsensitive(entry.name));
+            launchable.setIdIndex(launchableIds.lookup(entry.id));
+            if (entry.score != null) {
+                launchable.setScore(entry.score);
+            }
+            launchables.add(launchable);
+        }
+        return launchables;
+    }
+
+    static void write(File file, List<Entry> entries) throws IOException {
+        // For atomicity, write to temporary file, then rename. Unique, so that concurrent writes
+        // can't mix their contents.
+        File tempfile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempfile))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry: entries) {
+                out.writeByte(entry.type);
+                out.writeUTF(entry.id);
+                out.writeUTF(entry.name);
+
+                out.writeBoolean(entry.score != null);
+                if (entry.score != null) {
+                    out.writeDouble(entry.score);
+                }
+
+                if (entry.type == TYPE_CONTACT) {
+                    out.writeLong(entry.contactId);
+                    out.writeBoolean(entry.photoRef != null);
+                    if (entry.photoRef != null) {
+                        out.writeUTF(entry.photoRef);
+                    }
+                } else {
+                    out.writeUTF(entry.packageName);
+                    out.writeUTF(entry.className);
+                }
+            }
+        }
+
+        if (!tempfile.renameTo(file)) {
+            if (!tempfile.delete()) {
+                Timber.w("Failed to delete snapshot temp file: %s", tempfile.getAbsolutePath());
+            }
+            throw new IOException(String.format("Updating snapshot file failed: '%s'->'%s'",
+                    tempfile.getAbsolutePath(), file.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * @return null if there is no snapshot or if it can't be read
+     */
+    @Nullable
+    static List<Entry> read(File file) {
+        Timer timer = new Timer();
+        timer.addLeg("Reading");
+        byte[] bytes;
+        try (FileInputStream in = new FileInputStream(file)) {
+            // One read for the whole file
+            bytes = new byte[(int)in.getChannel().size()];
+            new DataInputStream(in).readFully(bytes);
+        } catch (FileNotFoundException e) {
+            Timber.i("No snapshot yet: %s", file);
+            return null;
+        } catch (IOException e) {
+            Timber.w(e, "Reading snapshot failed: %s", file);
+            return null;
+        }
+
+        timer.addLeg("Parsing");
+        List<Entry> entries;
+        try {
+            entries = parse(bytes);
+        } catch (IOException e) {
+            Timber.w(e, "Parsing snapshot failed: %s", file);
+            return null;
+        }
+
+        if (entries != null) {
+            Timber.i("Reading %d snapshot entries took: %s", entries.size(), timer);
+        }
+        return entries;
+    }
+
+    @Nullable
+    private static List<Entry> parse(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                Timber.w("Snapshot has the wrong format, ignoring");
+                return null;
+            }
+
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Negative snapshot entry count: " + count);
+            }
+
+            // Don't trust the count for pre-allocation, the file could be damaged
+            List<Entry> entries = new ArrayList<>(Math.min(count, bytes.length));
+            for (int i = 0; i < count; i++) {
+                Entry entry = new Entry(in.readByte());
+                entry.id = in.readUTF();
+                entry.name = in.readUTF();
+
+                if (in.readBoolean()) {
+                    entry.score = in.readDouble();
+                }
+
+                switch (entry.type) {
+                    case TYPE_CONTACT:
+                        entry.contactId = in.readLong();
+                        if (in.readBoolean()) {
+                            entry.photoRef = in.readUTF();
+                        }
+                        break;
+                    case TYPE_INTENT:
+                    case TYPE_APP:
+                        entry.packageName = in.readUTF();
+                        entry.className = in.readUTF();
+                        break;
+                    default:
+                        throw new IOException("Unknown snapshot entry type " + entry.type);
+                }
+
+                entries.add(entry);
+            }
+
+            return entries;
+        } catch (EOFException e) {
+            throw new IOException("Snapshot truncated", e);
+        }
+    }
+}
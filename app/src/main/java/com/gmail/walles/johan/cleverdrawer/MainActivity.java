@@ -27,7 +27,6 @@ package com.gmail.walles.johan.cleverdrawer;
 
 import android.Manifest;
 import android.content.ComponentName;
-import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
@@ -62,6 +61,9 @@ public class MainActivity extends AppCompatActivity {
     @Nullable
     private LaunchableAdapter launchableAdapter;
 
+    private LaunchRecorder launchRecorder;
+    private LaunchableRepository launchableRepository;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -73,15 +75,17 @@ public class MainActivity extends AppCompatActivity {
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
-        final File launchHistoryFile = MainActivity.getLaunchHistoryFile(this);
-        final File cacheFile = new File(getFilesDir(), "nameCache.json");
+        Application application = (Application)getApplication();
+        launchRecorder = application.getLaunchRecorder();
+        launchableRepository = application.getLaunchableRepository();
         final File lastOrderFile = new File(getFilesDir(), "lastOrder.json");
 
         timer.addLeg("Finding GridView");
         GridView gridView = findViewById(R.id.iconGrid);
         timer.addLeg("Constructing Adapter");
-        LaunchableAdapter adapter =
-                new LaunchableAdapter(this, launchHistoryFile, cacheFile, lastOrderFile);
+        LaunchableAdapter adapter = new LaunchableAdapter(this,
+                launchRecorder, launchableRepository, application.getNameCacheWriter(),
+                lastOrderFile, application.getSnapshotWriter());
         gridView.setAdapter(adapter);
 
         timer.addLeg("Setting up click listener");
@@ -92,13 +96,11 @@ public class MainActivity extends AppCompatActivity {
             try {
                 startActivity(launchable.getLaunchIntent());
 
-                DatabaseUtils.registerLaunch(launchHistoryFile, launchable);
+                registerLaunch(launchable);
             } catch (RuntimeException e) {
                 // We can get a SecurityException, log what we were trying to launch. Note that the
                 // above info level message with this information never seems to reach Crashlytics.
                 Timber.e(e, "Failed to launch %s (%s)", launchable.getName(), launchable.getId());
-            } catch (IOException e) {
-                Timber.w(e, "Failed to register %s launch: %s", launchable.getName(), launchable.getId());
             }
 
             finish();
@@ -107,7 +109,7 @@ public class MainActivity extends AppCompatActivity {
         timer.addLeg("Setting up hold listener");
         gridView.setOnItemLongClickListener((adapterView, icon, position, id) -> {
             Launchable launchable = (Launchable)adapterView.getItemAtPosition(position);
-            showLongPressPopup(launchable, icon, launchHistoryFile);
+            showLongPressPopup(launchable, icon);
 
             return true;
         });
@@ -134,11 +136,14 @@ public class MainActivity extends AppCompatActivity {
         Timber.i("onCreateView() timings: %s", timer.toString());
     }
 
-    private void showLongPressPopup(
-            Launchable launchable,
-            View anchorView,
-            File launchHistoryFile)
-    {
+    private void registerLaunch(Launchable launchable) {
+        launchRecorder.record(launchable);
+
+        // Scores changed
+        launchableRepository.invalidate("Launched " + launchable.getId());
+    }
+
+    private void showLongPressPopup(Launchable launchable, View anchorView) {
         Timber.i("Bringing up popup menu for %s (%s)...", launchable.getName(), launchable.getId());
         PopupMenu popup = new PopupMenu(this, anchorView);
         MenuInflater inflater = popup.getMenuInflater();
@@ -152,11 +157,7 @@ public class MainActivity extends AppCompatActivity {
             appInfoItem.setEnabled(true);
             appInfoItem.setOnMenuItemClickListener(item -> {
                 startActivity(appInfoIntent);
-                try {
-                    DatabaseUtils.registerLaunch(launchHistoryFile, launchable);
-                } catch (IOException e) {
-                    Timber.w(e, "Failed to up launch count after long press");
-                }
+                registerLaunch(launchable);
                 finish();
 
                 // "true" here means "event handled"
@@ -171,6 +172,10 @@ public class MainActivity extends AppCompatActivity {
     protected void onStart() {
         super.onStart();
 
+        if (launchableAdapter != null) {
+            launchableAdapter.reloadIfInvalid();
+        }
+
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.READ_CONTACTS)
                 == PackageManager.PERMISSION_GRANTED) {
             // We already have it
@@ -184,6 +189,16 @@ public class MainActivity extends AppCompatActivity {
                 REQUEST_READ_CONTACTS);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+
+        if (launchableAdapter != null) {
+            // Nobody will see what's being loaded, and a new activity will load again anyway
+            launchableAdapter.cancelLoading();
+        }
+    }
+
     private boolean isHomeScreenEnabled() {
         ComponentName component =
                 new ComponentName(getPackageName(), "com.gmail.walles.johan.cleverdrawer.Homescreen");
@@ -253,20 +268,35 @@ public class MainActivity extends AppCompatActivity {
 
         intent.putExtra(Intent.EXTRA_SUBJECT, "CleverDrawer " + BuildConfig.VERSION_NAME);
 
-        File launchHistoryFile = getLaunchHistoryFile(this);
-        if (launchHistoryFile.isFile()) {
-            Uri launchHistoryUri = FileProvider.getUriForFile(
-                    this,
-                    BuildConfig.APPLICATION_ID + ".provider",
-                    launchHistoryFile);
-            intent.putExtra(Intent.EXTRA_STREAM, launchHistoryUri);
-        }
+        File launchHistoryFile = new File(getFilesDir(), "statistics-export.json");
 
-        startActivity(Intent.createChooser(intent, "Contact Developer"));
-    }
+        // Waiting for the launch recorder and exporting both hit the disk, stay off the UI thread
+        new Thread(() -> {
+            launchRecorder.flush();
+            try {
+                DatabaseUtils.saveLaunches(
+                        launchHistoryFile, launchRecorder.getLaunchHistory().load());
+            } catch (IOException e) {
+                Timber.w(e, "Exporting launch history failed");
+            }
 
-    private static File getLaunchHistoryFile(Context context) {
-        return new File(context.getFilesDir(), "statistics.json");
+            runOnUiThread(() -> {
+                if (isFinishing() || isDestroyed()) {
+                    Timber.i("Activity gone, not composing developer e-mail");
+                    return;
+                }
+
+                if (launchHistoryFile.isFile()) {
+                    Uri launchHistoryUri = FileProvider.getUriForFile(
+                            this,
+                            BuildConfig.APPLICATION_ID + ".provider",
+                            launchHistoryFile);
+                    intent.putExtra(Intent.EXTRA_STREAM, launchHistoryUri);
+                }
+
+                startActivity(Intent.createChooser(intent, "Contact Developer"));
+            });
+        }, "Launch History Exporter").start();
     }
 
     @Override
@@ -275,6 +305,8 @@ public class MainActivity extends AppCompatActivity {
             if (grantResults.length == 0) {
                 // If request is cancelled, the result arrays are empty.
             } else if (grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+                launchableRepository.observeContacts(getApplicationContext());
+                launchableRepository.invalidate("Contacts permission granted");
                 if (launchableAdapter != null) {
                     launchableAdapter.reloadLaunchables();
                 }
@@ -286,6 +318,13 @@ public class MainActivity extends AppCompatActivity {
         Timber.w("Got unknown permissions result %d: %s", requestCode, Arrays.toString(permissions));
     }
 
+    /**
+     * Show or hide the loading indicator.
+     */
+    public void setLoading(boolean loading) {
+        findViewById(R.id.loadingIndicator).setVisibility(loading ? View.VISIBLE : View.GONE);
+    }
+
     public void setLaunchableAdapter(@Nullable LaunchableAdapter launchableAdapter) {
         this.launchableAdapter = launchableAdapter;
     }
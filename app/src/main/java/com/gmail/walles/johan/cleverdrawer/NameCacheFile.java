@@ -0,0 +1,402 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * Binary names cache format, made for memory mapping.
+ * <p>
+ * The file starts with a header and a table of {@link NameCachePartitions} partitions. Each
+ * partition has an array of fixed size entries sorted by a 64 bit hash of the launchable ID, and
+ * all strings live in a pool at the end of the file.
+ * <p>
+ * Looking up a name is a binary search over the mapped entries, and only the entries that are
+ * looked up get their strings decoded. Nothing else is parsed. The stored ID string is compared
+ * on every lookup, so a hash collision can't return somebody else's name.
+ */
+class NameCacheFile {
+    private static final int MAGIC = 0x43444e43; // "CDNC"
+    private static final int VERSION = 1;
+
+    /**
+     * Magic, version and partition count.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 4;
+
+    /**
+     * Locale string offset and length, entry count and entries offset.
+     */
+    private static final int PARTITION_SIZE = 4 + 4 + 4 + 4;
+
+    /**
+     * ID hash, lastUpdateTime, versionCode, ID string offset and length, name string offset and
+     * length.
+     */
+    private static final int ENTRY_SIZE = 8 + 8 + 8 + 4 + 4 + 4 + 4;
+
+    /**
+     * Cached names for one locale in a mapped names cache file.
+     */
+    static class View {
+        private final ByteBuffer buffer;
+        private final String locale;
+        private final int entryCount;
+        private final int entriesOffset;
+
+        private View(ByteBuffer buffer, String locale, int entryCount, int entriesOffset) {
+            this.buffer = buffer;
+            this.locale = locale;
+            this.entryCount = entryCount;
+            this.entriesOffset = entriesOffset;
+        }
+
+        /**
+         * @return null if we have no name for this ID
+         */
+        @Nullable
+        CachedName get(String id) {
+            try {
+                return find(id);
+            } catch (IndexOutOfBoundsException e) {
+                Timber.w(e, "Names cache entry invalid for %s", id);
+                return null;
+            }
+        }
+
+        @Nullable
+        private CachedName find(String id) {
+            long hash = hash(id);
+            int low = 0;
+            int high = entryCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleHash = buffer.getLong(entryOffset(middle));
+                if (middleHash < hash) {
+                    low = middle + 1;
+                } else if (middleHash > hash) {
+                    high = middle - 1;
+                } else {
+                    return findAmongEqualHashes(id, hash, middle);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The hash only tells us where to look, check the stored IDs of all entries sharing it.
+         */
+        @Nullable
+        private CachedName findAmongEqualHashes(String id, long hash, int index) {
+            int first = index;
+            while (first > 0 && buffer.getLong(entryOffset(first - 1)) == hash) {
+                first--;
+            }
+
+            for (int i = first; i < entryCount; i++) {
+                int entryOffset = entryOffset(i);
+                if (buffer.getLong(entryOffset) != hash) {
+                    break;
+                }
+                if (id.equals(readString(buffer, entryOffset + 24))) {
+                    return decodeEntry(buffer, entryOffset, locale);
+                }
+            }
+            return null;
+        }
+
+        private int entryOffset(int index) {
+            return entriesOffset + index * ENTRY_SIZE;
+        }
+    }
+
+    private NameCacheFile() {
+        // Only static methods in here
+    }
+
+    /**
+     * A view without any names in it.
+     */
+    static View empty() {
+        return new View(ByteBuffer.allocate(0), "", 0, 0);
+    }
+
+    /**
+     * Map the names for one locale from a names cache file.
+     *
+     * @return An empty view if the file doesn't exist or can't be read
+     */
+    static View map(File file, String locale) {
+        View empty = new View(ByteBuffer.allocate(0), locale, 0, 0);
+        if (!file.exists()) {
+            return empty;
+        }
+
+        ByteBuffer buffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            // The mapping stays valid after the file has been closed, and after the file has been
+            // replaced by a new version
+            buffer = randomAccessFile.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length());
+        } catch (IOException e) {
+            Timber.w(e, "Error mapping names cache: %s", file);
+            return empty;
+        }
+
+        try {
+            return findPartition(buffer, locale);
+        } catch (IOException | IndexOutOfBoundsException e) {
+            Timber.w(e, "Names cache invalid: %s", file);
+            return empty;
+        }
+    }
+
+    /**
+     * @return An empty view if there are no names for this locale
+     */
+    private static View findPartition(ByteBuffer buffer, String locale) throws IOException {
+        int partitionCount = readHeader(buffer);
+        for (int i = 0; i < partitionCount; i++) {
+            int partitionOffset = HEADER_SIZE + i * PARTITION_SIZE;
+            if (!locale.equals(readString(buffer, partitionOffset))) {
+                continue;
+            }
+
+            int entryCount = buffer.getInt(partitionOffset + 8);
+            int entriesOffset = buffer.getInt(partitionOffset + 12);
+            if (entryCount < 0 || entriesOffset + (long)entryCount * ENTRY_SIZE > buffer.limit()) {
+                throw new IOException("Partition entries out of bounds: " + locale);
+            }
+            return new View(buffer, locale, entryCount, entriesOffset);
+        }
+
+        return new View(buffer, locale, 0, 0);
+    }
+
+    /**
+     * Decode all names for all locales, for updating them.
+     */
+    static NameCachePartitions decode(byte[] bytes, LaunchableIds launchableIds)
+            throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        NameCachePartitions partitions = new NameCachePartitions();
+        try {
+            int partitionCount = readHeader(buffer);
+
+            // Start with the least recently used locale, put() moves every new locale to the front
+            for (int i = partitionCount - 1; i >= 0; i--) {
+                int partitionOffset = HEADER_SIZE + i * PARTITION_SIZE;
+                String locale = readString(buffer, partitionOffset);
+                int entryCount = buffer.getInt(partitionOffset + 8);
+                int entriesOffset = buffer.getInt(partitionOffset + 12);
+
+                List<CachedName> names = new ArrayList<>();
+                for (int j = 0; j < entryCount; j++) {
+                    int entryOffset = entriesOffset + j * ENTRY_SIZE;
+                    int idIndex = launchableIds.intern(readString(buffer, entryOffset + 24));
+                    while (names.size() <= idIndex) {
+                        names.add(null);
+                    }
+                    names.set(idIndex, decodeEntry(buffer, entryOffset, locale));
+                }
+                partitions.put(locale, names.toArray(new CachedName[0]));
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Names cache truncated", e);
+        }
+        return partitions;
+    }
+
+    static byte[] encode(NameCachePartitions partitions, LaunchableIds launchableIds) {
+        // Collect the entries of all partitions, each sorted by ID hash
+        List<List<Integer>> partitionIdIndices = new ArrayList<>();
+        int totalEntryCount = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            CachedName[] names = partitions.getNames(i);
+            List<Integer> idIndices = new ArrayList<>();
+            for (int idIndex = 0; idIndex < names.length; idIndex++) {
+                if (names[idIndex] != null) {
+                    idIndices.add(idIndex);
+                }
+            }
+            Collections.sort(idIndices, (a, b) -> Long.compare(
+                    hash(launchableIds.getId(a)), hash(launchableIds.getId(b))));
+            partitionIdIndices.add(idIndices);
+            totalEntryCount += idIndices.size();
+        }
+
+        int poolOffset = HEADER_SIZE
+                + partitions.size() * PARTITION_SIZE
+                + totalEntryCount * ENTRY_SIZE;
+        StringPool pool = new StringPool(poolOffset);
+
+        ByteBuffer table = ByteBuffer.allocate(poolOffset);
+        table.putInt(MAGIC);
+        table.putInt(VERSION);
+        table.putInt(partitions.size());
+
+        int entriesOffset = HEADER_SIZE + partitions.size() * PARTITION_SIZE;
+        for (int i = 0; i < partitions.size(); i++) {
+            int entryCount = partitionIdIndices.get(i).size();
+            pool.putString(table, partitions.getLocale(i));
+            table.putInt(entryCount);
+            table.putInt(entriesOffset);
+            entriesOffset += entryCount * ENTRY_SIZE;
+        }
+
+        for (int i = 0; i < partitions.size(); i++) {
+            CachedName[] names = partitions.getNames(i);
+            for (int idIndex: partitionIdIndices.get(i)) {
+                String id = launchableIds.getId(idIndex);
+                CachedName cachedName = names[idIndex];
+                table.putLong(hash(id));
+                table.putLong(cachedName.lastUpdateTime);
+                table.putLong(cachedName.versionCode);
+                pool.putString(table, id);
+                pool.putString(table, cachedName.name);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(poolOffset + pool.size());
+        bytes.write(table.array(), 0, poolOffset);
+        pool.writeTo(bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Strings for the end of the file, each unique string stored only once.
+     */
+    private static class StringPool {
+        private final int poolOffset;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private StringPool(int poolOffset) {
+            this.poolOffset = poolOffset;
+        }
+
+        /**
+         * Add a string to the pool, and put its file offset and length into the buffer.
+         */
+        void putString(ByteBuffer buffer, String string) {
+            byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            Integer offset = offsets.get(string);
+            if (offset == null) {
+                offset = poolOffset + bytes.size();
+                bytes.write(encoded, 0, encoded.length);
+                offsets.put(string, offset);
+            }
+            buffer.putInt(offset);
+            buffer.putInt(encoded.length);
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        void writeTo(ByteArrayOutputStream out) {
+            byte[] pooled = bytes.toByteArray();
+            out.write(pooled, 0, pooled.length);
+        }
+    }
+
+    /**
+     * @return The number of partitions
+     */
+    private static int readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_SIZE) {
+            throw new IOException("Names cache truncated");
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a names cache");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported names cache version: " + buffer.getInt(4));
+        }
+
+        int partitionCount = buffer.getInt(8);
+        if (partitionCount < 0
+                || HEADER_SIZE + (long)partitionCount * PARTITION_SIZE > buffer.limit())
+        {
+            throw new IOException("Names cache partition count out of bounds: " + partitionCount);
+        }
+        return partitionCount;
+    }
+
+    private static CachedName decodeEntry(ByteBuffer buffer, int entryOffset, String locale) {
+        CachedName cachedName = new CachedName(readString(buffer, entryOffset + 32), null, locale);
+        cachedName.lastUpdateTime = buffer.getLong(entryOffset + 8);
+        cachedName.versionCode = buffer.getLong(entryOffset + 16);
+        return cachedName;
+    }
+
+    /**
+     * Decode a string from the pool, given where its offset and length are.
+     */
+    private static String readString(ByteBuffer buffer, int referenceOffset) {
+        int offset = buffer.getInt(referenceOffset);
+        int length = buffer.getInt(referenceOffset + 4);
+        if (offset < 0 || length < 0 || (long)offset + length > buffer.limit()) {
+            throw new IndexOutOfBoundsException(
+                    "String at " + offset + "+" + length + " not in buffer of " + buffer.limit());
+        }
+
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 64 bit FNV-1a over the UTF-16 code units of the ID.
+     * <p>
+     * With a few thousand IDs, the risk of two of them colliding is negligible.
+     */
+    static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * Cached names, one set per locale.
+ * <p>
+ * Switching back to a locale we have been in before gives us all of its names right away, instead
+ * of having to resolve them all again. Only the {@link #MAX_LOCALES} most recently used locales are
+ * kept.
+ */
+class NameCachePartitions {
+    static final int MAX_LOCALES = 3;
+
+    /**
+     * {@link java.util.Locale#toString()} values, most recently used first.
+     */
+    private final List<String> locales = new ArrayList<>();
+
+    /**
+     * One names array per locale, indexed by {@link LaunchableIds} index.
+     */
+    private final List<CachedName[]> names = new ArrayList<>();
+
+    /**
+     * @return Cached names indexed by {@link LaunchableIds} index, empty if we have none for this
+     * locale. Entries may be null.
+     */
+    CachedName[] get(String locale) {
+        int index = locales.indexOf(locale);
+        if (index < 0) {
+            return new CachedName[0];
+        }
+        return names.get(index);
+    }
+
+    /**
+     * Replace the names for a locale, making it the most recently used one.
+     */
+    void put(String locale, CachedName[] localeNames) {
+        int index = locales.indexOf(locale);
+        if (index >= 0) {
+            locales.remove(index);
+            names.remove(index);
+        }
+
+        locales.add(0, locale);
+        names.add(0, localeNames);
+
+        while (locales.size() > MAX_LOCALES) {
+            int last = locales.size() - 1;
+            Timber.i("Evicting cached names for locale %s", locales.get(last));
+            locales.remove(last);
+            names.remove(last);
+        }
+    }
+
+    int size() {
+        return locales.size();
+    }
+
+    /**
+     * @param index 0 is the most recently used locale
+     */
+    String getLocale(int index) {
+        return locales.get(index);
+    }
+
+    /**
+     * @param index 0 is the most recently used locale
+     */
+    CachedName[] getNames(int index) {
+        return names.get(index);
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * The only writer of the names cache file, see {@link NameCacheFile} for the format.
+ * <p>
+ * Updates are done on a single background thread. Update requests that come in while an earlier
+ * update is still waiting to start are merged into that update, so back-to-back requests result
+ * in one write.
+ * <p>
+ * Names are cached per locale, see {@link NameCachePartitions}. Only the current locale's names
+ * get updated.
+ * <p>
+ * The cache contents are kept in memory between updates together with a hash of what's on disk,
+ * and the file is only written if the hash changes.
+ */
+class NameCacheWriter {
+    private final File file;
+    private final LaunchableIds launchableIds;
+
+    /**
+     * Names from this JSON cache will be imported if we don't have a names cache file yet.
+     */
+    @Nullable
+    private final File legacyFile;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "Name Cache Writer"));
+
+    /**
+     * The update that will pick up new requests, or null if no update is waiting to start.
+     * Guarded by this, like all the other pending fields.
+     */
+    @Nullable
+    private Future<?> pendingUpdate;
+
+    /**
+     * Cache the names of exactly these launchables, or null to keep the cached names.
+     */
+    @Nullable
+    private List<Launchable> pendingLaunchables;
+
+    @Nullable
+    private NameResolver.Listener pendingListener;
+
+    /**
+     * Update the cached names of these launchables, after {@link #pendingLaunchables}.
+     */
+    private final List<Launchable> pendingChanged = new ArrayList<>();
+
+    @Nullable
+    private PackageVersion.Lookup pendingVersions;
+
+    /**
+     * What's in our file, only touched from the writer thread. Loaded on first update.
+     */
+    @Nullable
+    private NameCachePartitions cache;
+
+    /**
+     * Hash of our file contents, only touched from the writer thread.
+     */
+    @Nullable
+    private byte[] fileHash;
+
+    NameCacheWriter(File file, LaunchableIds launchableIds, @Nullable File legacyFile) {
+        this.file = file;
+        this.launchableIds = launchableIds;
+        this.legacyFile = legacyFile;
+    }
+
+    /**
+     * Map the cached names for the current locale.
+     * <p>
+     * If there's only a legacy cache, it is migrated first.
+     */
+    NameCacheFile.View map() {
+        if (!file.exists() && legacyFile != null && legacyFile.exists()) {
+            try {
+                writer.submit(this::migrate).get();
+            } catch (InterruptedException | ExecutionException e) {
+                Timber.w(e, "Waiting for names cache migration failed");
+            }
+        }
+
+        return NameCacheFile.map(file, Locale.getDefault().toString());
+    }
+
+    /**
+     * Cache the true names of these launchables in the background, dropping all other cached
+     * names. See {@link DatabaseUtils#cacheTrueNames} for details.
+     *
+     * @return Completes when the cache file is up to date with this request
+     */
+    synchronized Future<?> cacheTrueNames(List<Launchable> launchables,
+            PackageVersion.Lookup packageVersions, @Nullable NameResolver.Listener listener)
+    {
+        // Older requests were for launchables loaded earlier, these ones replace them
+        pendingLaunchables = launchables;
+        pendingListener = listener;
+        pendingChanged.clear();
+        pendingVersions = packageVersions;
+        return schedule();
+    }
+
+    /**
+     * Update the cached names of some launchables in the background, keeping all other cached
+     * names.
+     *
+     * @return Completes when the cache file is up to date with this request
+     */
+    synchronized Future<?> updateCachedNames(
+            List<Launchable> changed, PackageVersion.Lookup packageVersions)
+    {
+        pendingChanged.addAll(changed);
+        pendingVersions = packageVersions;
+        return schedule();
+    }
+
+    /**
+     * @return Completes when the cache file is up to date with all requests made so far
+     */
+    synchronized Future<?> getCompletion() {
+        if (pendingUpdate != null) {
+            return pendingUpdate;
+        }
+
+        // Wait for any update in progress
+        return writer.submit(() -> {});
+    }
+
+    private Future<?> schedule() {
+        if (pendingUpdate == null) {
+            pendingUpdate = writer.submit(this::update);
+        }
+        return pendingUpdate;
+    }
+
+    private void update() {
+        List<Launchable> launchables;
+        NameResolver.Listener listener;
+        List<Launchable> changed;
+        PackageVersion.Lookup packageVersions;
+        synchronized (this) {
+            // Requests from now on go into the next update
+            pendingUpdate = null;
+
+            launchables = pendingLaunchables;
+            listener = pendingListener;
+            changed = new ArrayList<>(pendingChanged);
+            packageVersions = pendingVersions;
+
+            pendingLaunchables = null;
+            pendingListener = null;
+            pendingChanged.clear();
+            pendingVersions = null;
+        }
+        if (packageVersions == null) {
+            // Nothing requested
+            return;
+        }
+
+        Timer timer = new Timer();
+        try {
+            // The cache is indexed by ID index, so those need to be on disk before the cache is
+            timer.addLeg("Persisting IDs");
+            launchableIds.persist();
+
+            timer.addLeg("Reading old cache");
+            NameCachePartitions partitions = getCache();
+
+            // Names for other locales are kept for when the user switches back
+            String locale = Locale.getDefault().toString();
+            CachedName[] updated = partitions.get(locale);
+
+            if (launchables != null) {
+                timer.addLeg("Caching true names");
+                updated = DatabaseUtils.cacheTrueNames(
+                        updated, locale, launchableIds, launchables, packageVersions, listener);
+            }
+
+            if (!changed.isEmpty()) {
+                timer.addLeg("Updating changed names");
+                updated = DatabaseUtils.updateCachedNames(
+                        updated, locale, launchableIds, changed, packageVersions);
+            }
+            partitions.put(locale, updated);
+
+            timer.addLeg("Saving");
+            if (!save(partitions)) {
+                Timber.i("Names cache unchanged, not rewriting it: %s", timer);
+                return;
+            }
+        } catch (IOException e) {
+            Timber.w(e, "Updating names cache failed");
+            return;
+        }
+
+        Timber.i("Names cache updated in %s: %s", file, timer);
+    }
+
+    /**
+     * Convert a legacy JSON names cache into a new names cache file.
+     */
+    private void migrate() {
+        if (file.exists()) {
+            // Already done
+            return;
+        }
+
+        Timer timer = new Timer();
+        timer.addLeg("Reading legacy names cache");
+        NameCachePartitions partitions = getCache();
+        try {
+            timer.addLeg("Persisting IDs");
+            launchableIds.persist();
+
+            timer.addLeg("Saving");
+            save(partitions);
+        } catch (IOException e) {
+            Timber.w(e, "Migrating names cache failed");
+            return;
+        }
+
+        Timber.i("Migrating names cache from %s took: %s", legacyFile, timer);
+    }
+
+    /**
+     * Write our names to disk unless they are already there.
+     *
+     * @return false if the file already had these contents
+     */
+    private boolean save(NameCachePartitions partitions) throws IOException {
+        byte[] bytes = NameCacheFile.encode(partitions, launchableIds);
+        byte[] hash = hash(bytes);
+        if (Arrays.equals(hash, fileHash)) {
+            return false;
+        }
+
+        write(bytes);
+        fileHash = hash;
+
+        if (legacyFile != null && legacyFile.exists() && !legacyFile.delete()) {
+            Timber.w("Unable to delete legacy names cache file: %s", legacyFile);
+        }
+        return true;
+    }
+
+    private NameCachePartitions getCache() {
+        if (cache != null) {
+            return cache;
+        }
+
+        cache = new NameCachePartitions();
+        if (file.exists()) {
+            try {
+                byte[] bytes = readBytes(file);
+                fileHash = hash(bytes);
+                cache = NameCacheFile.decode(bytes, launchableIds);
+            } catch (IOException e) {
+                Timber.w(e, "Error reading names cache, pretending it's empty");
+            }
+        } else if (legacyFile != null && legacyFile.exists()) {
+            try {
+                cache = DatabaseUtils.decodeNameCache(readBytes(legacyFile), launchableIds);
+            } catch (IOException e) {
+                Timber.w(e, "Error reading legacy names cache, not migrating it");
+            }
+        } else {
+            Timber.i("No names cache file found, guessing this is the first launch");
+        }
+        return cache;
+    }
+
+    private static byte[] readBytes(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            byte[] bytes = new byte[(int)file.length()];
+            input.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        // For atomicity, write to temporary file, then rename
+        File tempfile = new File(file.getAbsolutePath() + ".tmp");
+        try (OutputStream output = new FileOutputStream(tempfile)) {
+            output.write(bytes);
+        }
+        if (!tempfile.renameTo(file)) {
+            throw new IOException(String.format("Updating cache file failed: '%s'->'%s'",
+                    tempfile.getAbsolutePath(), file.getAbsolutePath()));
+        }
+    }
+
+    private static byte[] hash(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is required on Android", e);
+        }
+    }
+}
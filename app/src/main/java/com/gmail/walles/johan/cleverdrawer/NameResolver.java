@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Resolves true launchable names on a pool of background threads.
+ * <p>
+ * Resolving a name means asking the system for a label, which can take milliseconds per
+ * launchable. With hundreds of launchables that adds up to seconds on a single thread, so we spread
+ * the work over one thread per core.
+ * <p>
+ * Names are resolved in the order the launchables are passed in, so put the ones the user will see
+ * first at the start of the list.
+ */
+class NameResolver {
+    private static final int THREAD_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    @Nullable
+    private static ThreadPoolExecutor executor;
+
+    interface Listener {
+        /**
+         * Called on a resolver thread after each name has been resolved.
+         *
+         * @param trueName What {@link Launchable#getTrueName()} returned
+         * @param resolvedCount How many names of this batch have been resolved so far, including
+         *                      this one
+         * @param totalCount How many names there are in this batch
+         */
+        void onNameResolved(Launchable launchable, @Nullable CaseInsensitive trueName,
+                int resolvedCount, int totalCount);
+    }
+
+    private NameResolver() {
+        // Not for instantiation
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(
+                    THREAD_COUNT,
+                    THREAD_COUNT,
+                    1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, "Name Resolver"));
+
+            // Don't keep idle threads around between loads
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Resolve the true names of some launchables, blocking until all of them are done.
+     *
+     * @return True names in the same order as the launchables, with nulls for unknown names
+     */
+    static CaseInsensitive[] resolve(List<Launchable> launchables, @Nullable Listener listener) {
+        int totalCount = launchables.size();
+        CaseInsensitive[] trueNames = new CaseInsensitive[totalCount];
+        AtomicInteger resolvedCount = new AtomicInteger();
+
+        ThreadPoolExecutor executor = getExecutor();
+        List<Future<?>> futures = new ArrayList<>(totalCount);
+        for (int i = 0; i < totalCount; i++) {
+            int index = i;
+            Launchable launchable = launchables.get(i);
+            futures.add(executor.submit(() -> {
+                CaseInsensitive trueName = launchable.getTrueName();
+                trueNames[index] = trueName;
+                if (listener != null) {
+                    listener.onNameResolved(
+                            launchable, trueName, resolvedCount.incrementAndGet(), totalCount);
+                }
+            }));
+        }
+
+        for (Future<?> future: futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                for (Future<?> cancelMe: futures) {
+                    cancelMe.cancel(false);
+                }
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while resolving names", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Resolving names failed", e.getCause());
+            }
+        }
+
+        // Future.get() makes all the resolver threads' writes to trueNames visible to us
+        return trueNames;
+    }
+}
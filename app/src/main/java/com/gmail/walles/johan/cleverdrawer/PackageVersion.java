@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Which version of a package is installed.
+ */
+class PackageVersion {
+    final long lastUpdateTime;
+    final long versionCode;
+
+    interface Lookup {
+        /**
+         * @return null if the package isn't installed
+         */
+        @Nullable
+        PackageVersion get(String packageName);
+    }
+
+    PackageVersion(long lastUpdateTime, long versionCode) {
+        this.lastUpdateTime = lastUpdateTime;
+        this.versionCode = versionCode;
+    }
+
+    /**
+     * Look up package versions, asking the package manager at most once per package.
+     */
+    static Lookup lookupFrom(PackageManager packageManager) {
+        Map<String, PackageVersion> versions = new HashMap<>();
+        return packageName -> {
+            if (versions.containsKey(packageName)) {
+                return versions.get(packageName);
+            }
+
+            PackageVersion version;
+            try {
+                version = fromPackageInfo(packageManager.getPackageInfo(packageName, 0));
+            } catch (PackageManager.NameNotFoundException e) {
+                version = null;
+            }
+            versions.put(packageName, version);
+            return version;
+        };
+    }
+
+    @SuppressWarnings("deprecation")
+    private static PackageVersion fromPackageInfo(PackageInfo packageInfo) {
+        long versionCode;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            versionCode = packageInfo.getLongVersionCode();
+        } else {
+            versionCode = packageInfo.versionCode;
+        }
+        return new PackageVersion(packageInfo.lastUpdateTime, versionCode);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (!(o instanceof PackageVersion)) {
+            return false;
+        }
+
+        PackageVersion that = (PackageVersion)o;
+        return lastUpdateTime == that.lastUpdateTime && versionCode == that.versionCode;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int)(lastUpdateTime ^ (lastUpdateTime >>> 32)) * 31 + (int)versionCode;
+    }
+
+    @Override
+    public String toString() {
+        return "PackageVersion{" +
+                "lastUpdateTime=" + lastUpdateTime +
+                ", versionCode=" + versionCode +
+                '}';
+    }
+}
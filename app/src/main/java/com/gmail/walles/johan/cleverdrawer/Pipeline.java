@@ -0,0 +1,359 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * Runs named stages of work on a process wide thread pool, each stage as soon as the stages it
+ * depends on are done.
+ * <p>
+ * Stages that don't depend on each other run concurrently. A stage that fails is logged and
+ * replaced by its fallback result, so that the stages after it can still produce something.
+ * <p>
+ * Cancelling a pipeline lets running stages finish, but no new stages are started after that.
+ * <p>
+ * To hear about it when a pipeline has stopped, either because all stages are done or because it
+ * was cancelled, use {@link #setOnStopped(Runnable)}.
+ */
+class Pipeline {
+    private static final int THREAD_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    @Nullable
+    private static ThreadPoolExecutor executor;
+
+    private final String name;
+    private final long t0 = System.currentTimeMillis();
+
+    /**
+     * All stages in the order they were added, guarded by this like all other state.
+     */
+    private final List<Stage<?>> stages = new ArrayList<>();
+    private boolean started;
+    private boolean cancelled;
+
+    /**
+     * Stages submitted to the executor that haven't completed yet.
+     */
+    private int unfinished;
+
+    @Nullable
+    private Runnable onStopped;
+
+    interface Work<T> {
+        T run() throws Exception;
+    }
+
+    interface Fallback<T> {
+        /**
+         * Called if the stage fails. Results from the stage's dependencies are available.
+         */
+        T get();
+    }
+
+    class Stage<T> {
+        private final String name;
+        private final Work<T> work;
+        private final Fallback<T> fallback;
+        private final List<Stage<?>> dependents = new ArrayList<>();
+
+        private int pendingDependencies;
+        private boolean done;
+        private boolean failed;
+
+        @Nullable
+        private T result;
+
+        /**
+         * Milliseconds since the pipeline was created, -1 until known.
+         */
+        private long startMs = -1;
+        private long endMs = -1;
+
+        private Stage(String name, Work<T> work, Fallback<T> fallback) {
+            this.name = name;
+            this.work = work;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Wait for this stage to finish.
+         *
+         * @return The stage result, or its fallback result if it failed, or null if the fallback
+         * failed as well
+         * @throws CancellationException if the pipeline was cancelled before this stage finished
+         */
+        T get() {
+            synchronized (Pipeline.this) {
+                while (!done && !cancelled) {
+                    try {
+                        Pipeline.this.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CancellationException("Interrupted waiting for " + name);
+                    }
+                }
+                if (!done) {
+                    throw new CancellationException(Pipeline.this.name + " cancelled before "
+                            + name);
+                }
+                return result;
+            }
+        }
+
+        boolean isDone() {
+            synchronized (Pipeline.this) {
+                return done;
+            }
+        }
+
+        @Override
+        public String toString() {
+            synchronized (Pipeline.this) {
+                if (startMs < 0) {
+                    return name + " not run";
+                }
+                if (endMs < 0) {
+                    return name + " " + startMs + "ms+";
+                }
+                return name + " " + startMs + "+" + (endMs - startMs) + "ms"
+                        + (failed ? " (failed)" : "");
+            }
+        }
+    }
+
+    /**
+     * @param name For logging
+     */
+    Pipeline(String name) {
+        this.name = name;
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(
+                    THREAD_COUNT,
+                    THREAD_COUNT,
+                    1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, "Pipeline Worker"));
+
+            // Don't keep idle threads around between loads
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Add a stage that will run once all its dependencies are done.
+     * <p>
+     * The work can get the results of its dependencies from their {@link Stage#get()} methods
+     * without blocking.
+     */
+    synchronized <T> Stage<T> addStage(String name, Work<T> work, Fallback<T> fallback,
+            Stage<?>... dependencies)
+    {
+        if (started) {
+            throw new IllegalStateException("Can't add stages after start(): " + name);
+        }
+
+        Stage<T> stage = new Stage<>(name, work, fallback);
+        for (Stage<?> dependency: dependencies) {
+            dependency.dependents.add(stage);
+        }
+        stage.pendingDependencies = dependencies.length;
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Run this when no more stages will run, either because all stages are done or because the
+     * pipeline was cancelled and the running stages have finished.
+     * <p>
+     * Runs once, on the thread that finished the last stage, or in {@link #start()} if there was
+     * nothing to run. Don't block in here.
+     */
+    synchronized void setOnStopped(Runnable onStopped) {
+        if (started) {
+            throw new IllegalStateException("Can't set onStopped after start()");
+        }
+        this.onStopped = onStopped;
+    }
+
+    void start() {
+        Runnable stopped;
+        synchronized (this) {
+            started = true;
+            for (Stage<?> stage: stages) {
+                if (stage.pendingDependencies == 0) {
+                    submit(stage);
+                }
+            }
+            stopped = takeOnStoppedIfStopped();
+        }
+        runOnStopped(stopped);
+    }
+
+    /**
+     * Don't start any more stages. Anybody waiting for a stage that hasn't finished will get a
+     * {@link CancellationException}.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Must be called while holding our lock.
+     */
+    private void submit(Stage<?> stage) {
+        unfinished++;
+        getExecutor().execute(() -> run(stage));
+    }
+
+    /**
+     * Must be called while holding our lock.
+     *
+     * @return The onStopped callback if the last unfinished stage just finished, otherwise null
+     */
+    @Nullable
+    private Runnable takeOnStoppedIfStopped() {
+        if (unfinished > 0) {
+            return null;
+        }
+
+        Runnable stopped = onStopped;
+        onStopped = null;
+        return stopped;
+    }
+
+    private static void runOnStopped(@Nullable Runnable stopped) {
+        if (stopped != null) {
+            stopped.run();
+        }
+    }
+
+    private <T> void run(Stage<T> stage) {
+        boolean skip;
+        Runnable stopped = null;
+        synchronized (this) {
+            skip = cancelled;
+            if (skip) {
+                unfinished--;
+                stopped = takeOnStoppedIfStopped();
+            } else {
+                stage.startMs = System.currentTimeMillis() - t0;
+            }
+        }
+        if (skip) {
+            runOnStopped(stopped);
+            return;
+        }
+
+        T result = null;
+        boolean succeeded = false;
+        try {
+            result = stage.work.run();
+            succeeded = true;
+        } catch (CancellationException e) {
+            if (!isCancelled()) {
+                Timber.w(e, "%s: %s interrupted, using fallback", name, stage.name);
+            }
+            // Otherwise we were cancelled while running, nothing to warn about
+        } catch (Exception e) {
+            Timber.w(e, "%s: %s failed, using fallback", name, stage.name);
+        } finally {
+            try {
+                if (!succeeded) {
+                    result = stage.fallback.get();
+                }
+            } catch (RuntimeException e) {
+                Timber.w(e, "%s: %s fallback failed, using null", name, stage.name);
+            } finally {
+                // Whatever happened, anybody waiting for this stage must be told it's done
+                runOnStopped(complete(stage, result, !succeeded));
+            }
+        }
+    }
+
+    /**
+     * @return The onStopped callback if this was the last stage to finish, otherwise null
+     */
+    @Nullable
+    private synchronized <T> Runnable complete(
+            Stage<T> stage, @Nullable T result, boolean failed)
+    {
+        stage.result = result;
+        stage.failed = failed;
+        stage.done = true;
+        stage.endMs = System.currentTimeMillis() - t0;
+        notifyAll();
+
+        if (!cancelled) {
+            for (Stage<?> dependent: stage.dependents) {
+                dependent.pendingDependencies--;
+                if (dependent.pendingDependencies == 0) {
+                    submit(dependent);
+                }
+            }
+        }
+
+        // After submitting the dependents, so that we don't stop in between stages
+        unfinished--;
+        return takeOnStoppedIfStopped();
+    }
+
+    /**
+     * @return When each stage started and how long it took, in milliseconds since the pipeline
+     * was created
+     */
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(System.currentTimeMillis() - t0).append("ms");
+        if (cancelled) {
+            builder.append(" (cancelled)");
+        }
+        builder.append(':');
+        for (Stage<?> stage: stages) {
+            builder.append(' ').append(stage).append(',');
+        }
+        builder.setLength(builder.length() - 1);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * Launch counts per {@link LaunchableIds} index over the last
+ * {@link DatabaseUtils#SCORING_MAX_LAUNCH_COUNT} launches.
+ * <p>
+ * The table is updated one launch at a time as launches are recorded, and is persisted next to the
+ * launch history so that scoring at startup doesn't have to go through the history.
+ * <p>
+ * The table remembers how many launches the history had seen when the table was last updated. If
+ * the history has moved on since then the table catches up, and if the two can't be reconciled the
+ * table is recounted from the history. A loaded table whose counts don't add up to its scoring
+ * window is recounted as well.
+ * <p>
+ * Launches of indices that {@link LaunchableIds} doesn't know about don't get scores, but they are
+ * still counted separately so that the counts add up.
+ */
+class ScoreTable {
+    private static final int MAGIC = 0x43445354; // "CDST"
+    private static final int VERSION = 2;
+
+    private static final int WINDOW = DatabaseUtils.SCORING_MAX_LAUNCH_COUNT;
+
+    private final LaunchableIds launchableIds;
+
+    private int[] counts;
+
+    /**
+     * Launches within the scoring window of indices not in {@link #launchableIds}.
+     */
+    private int unknownCount;
+
+    /**
+     * Value of {@link LaunchHistory#getAppendCount()} that this table is up to date with.
+     */
+    private long appendCount;
+
+    ScoreTable(LaunchableIds launchableIds) {
+        this(launchableIds, new int[0], 0, 0);
+    }
+
+    private ScoreTable(
+            LaunchableIds launchableIds, int[] counts, int unknownCount, long appendCount)
+    {
+        this.launchableIds = launchableIds;
+        this.counts = counts;
+        this.unknownCount = unknownCount;
+        this.appendCount = appendCount;
+    }
+
+    ScoreTable copy() {
+        return new ScoreTable(launchableIds, counts.clone(), unknownCount, appendCount);
+    }
+
+    /**
+     * Count the last {@link DatabaseUtils#SCORING_MAX_LAUNCH_COUNT} launches.
+     */
+    static ScoreTable fromLaunches(LaunchLog launches, LaunchableIds launchableIds) {
+        ScoreTable scoreTable = new ScoreTable(launchableIds);
+        scoreTable.recount(launches, launches.size());
+        return scoreTable;
+    }
+
+    /**
+     * Load a table from disk and make sure it's up to date with the launch history.
+     *
+     * @param appendCount {@link LaunchHistory#getAppendCount()} for {@code launches}
+     */
+    static ScoreTable load(
+            File file, LaunchableIds launchableIds, LaunchLog launches, long appendCount)
+    {
+        ScoreTable scoreTable = null;
+        try {
+            scoreTable = read(file, launchableIds);
+        } catch (FileNotFoundException e) {
+            Timber.i("No score table yet: %s", file);
+        } catch (IOException e) {
+            Timber.w(e, "Reading score table failed: %s", file);
+        }
+
+        if (scoreTable == null) {
+            scoreTable = new ScoreTable(launchableIds);
+        }
+        scoreTable.catchUp(launches, appendCount);
+        return scoreTable;
+    }
+
+    /**
+     * Count launch number {@code index} in {@code launches}, and uncount the launch that this one
+     * pushes out of the scoring window.
+     */
+    void add(LaunchLog launches, int index) {
+        increment(launches.getIdIndex(index), 1);
+
+        int leaving = index - WINDOW;
+        if (leaving >= 0) {
+            increment(launches.getIdIndex(leaving), -1);
+        }
+
+        appendCount++;
+    }
+
+    /**
+     * Bring this table up to date with a launch history.
+     *
+     * @param appendCount {@link LaunchHistory#getAppendCount()} for {@code launches}
+     */
+    void catchUp(LaunchLog launches, long appendCount) {
+        long missing = appendCount - this.appendCount;
+        if (missing == 0) {
+            return;
+        }
+
+        // To uncount launches leaving the window, those launches must still be in the history
+        int size = launches.size();
+        boolean nothingDropped = appendCount == size;
+        if (missing < 0 || missing > size || (!nothingDropped && size - missing < WINDOW)) {
+            Timber.w("Score table out of sync with launch history at %d/%d launches, recounting",
+                    this.appendCount, appendCount);
+            recount(launches, appendCount);
+            return;
+        }
+
+        for (int i = (int)(size - missing); i < size; i++) {
+            add(launches, i);
+        }
+    }
+
+    private void recount(LaunchLog launches, long appendCount) {
+        Arrays.fill(counts, 0);
+        unknownCount = 0;
+        for (int i = Math.max(0, launches.size() - WINDOW); i < launches.size(); i++) {
+            increment(launches.getIdIndex(i), 1);
+        }
+        this.appendCount = appendCount;
+    }
+
+    private void increment(int idIndex, int delta) {
+        if (idIndex < 0 || idIndex >= launchableIds.size()) {
+            // Unknown ID, no score for it but keep the counts adding up
+            unknownCount = Math.max(0, unknownCount + delta);
+            return;
+        }
+
+        if (idIndex >= counts.length) {
+            counts = Arrays.copyOf(counts, launchableIds.size());
+        }
+
+        int count = counts[idIndex] + delta;
+        if (count < 0) {
+            Timber.w("Score table count for index %d went negative", idIndex);
+            count = 0;
+        }
+        counts[idIndex] = count;
+    }
+
+    /**
+     * @return How many times this ID has been launched within the scoring window
+     */
+    int getCount(int idIndex) {
+        if (idIndex < 0 || idIndex >= counts.length) {
+            return 0;
+        }
+        return counts[idIndex];
+    }
+
+    long getAppendCount() {
+        return appendCount;
+    }
+
+    /**
+     * Write the non-zero counts to disk.
+     */
+    void save(File file) throws IOException {
+        // For atomicity, write to temporary file, then rename
+        File tempfile = new File(file.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempfile))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(WINDOW);
+            out.writeLong(appendCount);
+            out.writeInt(launchableIds.size());
+            out.writeInt(unknownCount);
+
+            int nonZeroCount = 0;
+            for (int count: counts) {
+                if (count != 0) {
+                    nonZeroCount++;
+                }
+            }
+            out.writeInt(nonZeroCount);
+
+            for (int idIndex = 0; idIndex < counts.length; idIndex++) {
+                if (counts[idIndex] == 0) {
+                    continue;
+                }
+                out.writeInt(idIndex);
+                out.writeInt(counts[idIndex]);
+            }
+        }
+
+        if (!tempfile.renameTo(file)) {
+            throw new IOException(String.format("Updating score table failed: '%s'->'%s'",
+                    tempfile.getAbsolutePath(), file.getAbsolutePath()));
+        }
+    }
+
+    /**
+     * @return null if the file contents isn't a valid score table
+     */
+    @Nullable
+    private static ScoreTable read(File file, LaunchableIds launchableIds) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != WINDOW) {
+                Timber.w("Score table has the wrong format, ignoring: %s", file);
+                return null;
+            }
+
+            long appendCount = in.readLong();
+            int savedIdCount = in.readInt();
+            int unknownCount = in.readInt();
+            int nonZeroCount = in.readInt();
+            int idCount = launchableIds.size();
+            if (unknownCount < 0 || (unknownCount > 0 && savedIdCount != idCount)) {
+                // Some of the unknown launches may be of IDs we know about by now
+                Timber.w("Score table has %d unknown launches counted against %d IDs, now %d IDs,"
+                        + " ignoring: %s", unknownCount, savedIdCount, idCount, file);
+                return null;
+            }
+
+            if (nonZeroCount < 0 || nonZeroCount > idCount) {
+                Timber.w("Score table has %d entries but there are only %d IDs, ignoring",
+                        nonZeroCount, idCount);
+                return null;
+            }
+
+            int[] counts = new int[idCount];
+            long sum = unknownCount;
+            for (int i = 0; i < nonZeroCount; i++) {
+                int idIndex = in.readInt();
+                int count = in.readInt();
+                if (idIndex < 0 || idIndex >= idCount || count <= 0) {
+                    Timber.w("Score table has bad entry %d=%d, ignoring", idIndex, count);
+                    return null;
+                }
+                counts[idIndex] = count;
+                sum += count;
+            }
+
+            // Catches tables counted against some other ID dictionary, or with corrupt counts
+            long expectedSum = Math.min(appendCount, WINDOW);
+            if (sum != expectedSum) {
+                Timber.w("Score table counts add up to %d, expected %d, ignoring: %s",
+                        sum, expectedSum, file);
+                return null;
+            }
+
+            return new ScoreTable(launchableIds, counts, unknownCount, appendCount);
+        } catch (EOFException e) {
+            Timber.w(e, "Score table truncated, ignoring: %s", file);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import androidx.annotation.Nullable;
+import timber.log.Timber;
+
+/**
+ * The only writer of the launchables snapshot file, see {@link LaunchableSnapshot}.
+ * <p>
+ * Saves are done on a single background thread. Save requests that come in while an earlier save
+ * is still waiting to start replace that save's launchables, so only the newest list gets written.
+ */
+class SnapshotWriter {
+    private final File file;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "Snapshot Writer"));
+
+    /**
+     * The save that will pick up new requests, or null if no save is waiting to start. Guarded by
+     * this, like {@link #pendingLaunchables}.
+     */
+    @Nullable
+    private Future<?> pendingSave;
+
+    @Nullable
+    private List<Launchable> pendingLaunchables;
+
+    SnapshotWriter(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Snapshot these launchables in the background.
+     *
+     * @return Completes when the snapshot file is up to date with this request
+     */
+    synchronized Future<?> save(List<Launchable> launchables) {
+        // Older requests were for launchables loaded earlier, these ones replace them
+        pendingLaunchables = launchables;
+        if (pendingSave == null) {
+            pendingSave = writer.submit(this::write);
+        }
+        return pendingSave;
+    }
+
+    private void write() {
+        List<Launchable> launchables;
+        synchronized (this) {
+            // Requests from now on go into the next save
+            pendingSave = null;
+            launchables = pendingLaunchables;
+            pendingLaunchables = null;
+        }
+        assert launchables != null;
+
+        try {
+            LaunchableSnapshot.save(file, launchables);
+            Timber.i("Snapshot of %d launchables saved into %s",
+                    launchables.size(), file.getAbsolutePath());
+        } catch (IOException e) {
+            Timber.w(e, "Saving snapshot failed");
+        }
+    }
+}
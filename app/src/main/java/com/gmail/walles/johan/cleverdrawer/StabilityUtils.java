@@ -36,9 +36,10 @@ import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import timber.log.Timber;
 
@@ -51,21 +52,31 @@ public class StabilityUtils {
     private static final int GROUP_SIZE = 4;
 
     @CheckResult
-    public static List<Launchable> stabilize(File lastSortOrder, List<Launchable> launchables) {
-        return stabilize(loadIdOrder(lastSortOrder), launchables);
+    static List<Launchable> stabilize(
+            File lastSortOrder, LaunchableIds launchableIds, List<Launchable> launchables)
+    {
+        return stabilize(loadIdOrder(lastSortOrder, launchableIds), launchables);
     }
 
+    /**
+     * @param lastOrderIds {@link LaunchableIds} indices in the order they were last shown
+     */
     @CheckResult
-    static List<Launchable> stabilize(List<String> lastOrderIds, List<Launchable> launchables) {
+    static List<Launchable> stabilize(int[] lastOrderIds, List<Launchable> launchables) {
         List<Launchable> stabilized = new ArrayList<>(launchables.size());
 
         Iterator<Launchable> source = launchables.iterator();
-        Iterator<String> lastOrder = lastOrderIds.iterator();
+        int lastOrderIndex = 0;
 
         while (true) {
             // Pick GROUP_SIZE elements from both lists
             ArrayList<Launchable> launchableGroup = getNextGroup(source);
-            ArrayList<String> idGroup = getNextGroup(lastOrder);
+            int[] idGroup = null;
+            if (lastOrderIndex < lastOrderIds.length) {
+                int groupEnd = Math.min(lastOrderIndex + GROUP_SIZE, lastOrderIds.length);
+                idGroup = Arrays.copyOfRange(lastOrderIds, lastOrderIndex, groupEnd);
+                lastOrderIndex = groupEnd;
+            }
 
             if (launchableGroup == null) {
                 // No more launchables, done!
@@ -91,15 +102,43 @@ public class StabilityUtils {
         }
     }
 
+    /**
+     * Reorder {@code ranked} so that launchables from {@code shown} keep their order.
+     * <p>
+     * Launchables that aren't in {@code shown} stay where they are in {@code ranked}, in between
+     * the shown ones.
+     */
+    @CheckResult
+    static List<Launchable> keepShownOrder(List<Launchable> shown, List<Launchable> ranked) {
+        Set<Launchable> inRanked = Collections.newSetFromMap(new IdentityHashMap<>());
+        inRanked.addAll(ranked);
+
+        Set<Launchable> wasShown = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Launchable> shownInOrder = new ArrayList<>(shown.size());
+        for (Launchable launchable: shown) {
+            if (inRanked.contains(launchable)) {
+                wasShown.add(launchable);
+                shownInOrder.add(launchable);
+            }
+        }
+
+        Iterator<Launchable> nextShown = shownInOrder.iterator();
+        List<Launchable> merged = new ArrayList<>(ranked.size());
+        for (Launchable launchable: ranked) {
+            merged.add(wasShown.contains(launchable) ? nextShown.next() : launchable);
+        }
+        return merged;
+    }
+
     private static Launchable[] stabilizeGroup(
             ArrayList<Launchable> launchableGroup,
-            ArrayList<String> idGroup)
+            int[] idGroup)
     {
         Launchable[] stabilized = new Launchable[launchableGroup.size()];
 
         // Add all launchables that already have spots in the right places
         int idIndex = 0;
-        for (String id: idGroup) {
+        for (int id: idGroup) {
             Launchable launchable = removeById(launchableGroup, id);
             stabilized[idIndex++] = launchable;
         }
@@ -120,11 +159,16 @@ public class StabilityUtils {
      * @return A Launchable with the given ID, or null if not found
      */
     @Nullable
-    private static Launchable removeById(ArrayList<Launchable> launchables, String id) {
+    private static Launchable removeById(ArrayList<Launchable> launchables, int id) {
+        if (id < 0) {
+            // Unknown IDs never match anything
+            return null;
+        }
+
         Iterator<Launchable> launchableIter = launchables.iterator();
         while (launchableIter.hasNext()) {
             Launchable launchable = launchableIter.next();
-            if (id.equals(launchable.getId())) {
+            if (id == launchable.getIdIndex()) {
                 launchableIter.remove();
                 return launchable;
             }
@@ -159,7 +203,12 @@ public class StabilityUtils {
         }
     }
 
-    public static void storeOrder(File lastSortOrder, List<Launchable> launchables) {
+    /**
+     * Store the {@link LaunchableIds} indices of all scored launchables.
+     * <p>
+     * Those indices come from the launch history, so they are already on disk in the IDs file.
+     */
+    static void storeOrder(File lastSortOrder, List<Launchable> launchables) {
         // Write to a temp file first...
         File tempfile = new File(lastSortOrder.toString() + ".tmp");
         try (PrintWriter out = new PrintWriter(tempfile)) {
@@ -167,7 +216,10 @@ public class StabilityUtils {
                 if (!launchable.hasScore()) {
                     continue;
                 }
-                out.println(launchable.getId());
+                if (launchable.getIdIndex() < 0) {
+                    continue;
+                }
+                out.println(launchable.getIdIndex());
             }
         } catch (IOException e) {
             Timber.w(e, "Unable to store sort order into: %s", tempfile);
@@ -192,24 +244,36 @@ public class StabilityUtils {
         }
     }
 
-    static List<String> loadIdOrder(File lastOrder) {
+    static int[] loadIdOrder(File lastOrder, LaunchableIds launchableIds) {
         if (!lastOrder.exists()) {
             // This is OK; it will happen before we've started tracking the last sort order for the
             // first time.
             Timber.i("Last order file doesn't exist: %s", lastOrder);
-            return Collections.emptyList();
+            return new int[0];
         }
 
-        List<String> idList = new LinkedList<>();
+        List<Integer> idList = new ArrayList<>();
         try(BufferedReader reader = new BufferedReader(new FileReader(lastOrder))) {
             for(String line; (line = reader.readLine()) != null; ) {
-                idList.add(line);
+                int idIndex;
+                try {
+                    idIndex = Integer.parseInt(line);
+                } catch (NumberFormatException e) {
+                    // Old format where we stored the complete ID, index it. The file will be
+                    // rewritten in the new format the next time we store the order.
+                    idIndex = launchableIds.intern(line);
+                }
+                idList.add(idIndex);
             }
         } catch (IOException e) {
             Timber.w(e, "Unable to read sort order from: %s", lastOrder);
-            return Collections.emptyList();
+            return new int[0];
         }
 
-        return idList;
+        int[] ids = new int[idList.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idList.get(i);
+        }
+        return ids;
     }
 }
@@ -0,0 +1,170 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps each three character sequence in the lowercased launchable names to the launchables
+ * containing it.
+ * <p>
+ * Every launchable matching a query contains all trigrams of all query words, so intersecting
+ * their posting lists gives a short list of candidates to verify using
+ * {@link FoldedNames#matches(int, CaseInsensitiveQuery)}.
+ */
+class TrigramIndex {
+    /**
+     * Sorted trigram keys, see {@link #key(char, char, char)}.
+     */
+    private final long[] keys;
+
+    /**
+     * The launchable indices for {@code keys[i]} are in {@link #postings} from
+     * {@code offsets[i]} up to {@code offsets[i + 1]}, in ascending order.
+     */
+    private final int[] offsets;
+    private final int[] postings;
+
+    private static class Postings {
+        private int[] indices = new int[4];
+        private int count;
+
+        private void add(int index) {
+            if (count > 0 && indices[count - 1] == index) {
+                // Trigram occurs more than once in the same name
+                return;
+            }
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, count * 2);
+            }
+            indices[count++] = index;
+        }
+    }
+
+    TrigramIndex(FoldedNames names) {
+        Map<Long, Postings> trigramPostings = new HashMap<>();
+        int postingsCount = 0;
+        for (int i = 0; i < names.size(); i++) {
+            for (int start = names.getStart(i); start + 3 <= names.getEnd(i); start++) {
+                Long key = key(
+                        names.charAt(start), names.charAt(start + 1), names.charAt(start + 2));
+                Postings trigram = trigramPostings.get(key);
+                if (trigram == null) {
+                    trigram = new Postings();
+                    trigramPostings.put(key, trigram);
+                }
+                int before = trigram.count;
+                trigram.add(i);
+                postingsCount += trigram.count - before;
+            }
+        }
+
+        keys = new long[trigramPostings.size()];
+        int keyIndex = 0;
+        for (Long key: trigramPostings.keySet()) {
+            keys[keyIndex++] = key;
+        }
+        Arrays.sort(keys);
+
+        offsets = new int[keys.length + 1];
+        postings = new int[postingsCount];
+        for (keyIndex = 0; keyIndex < keys.length; keyIndex++) {
+            Postings trigram = trigramPostings.get(keys[keyIndex]);
+            assert trigram != null;
+            int offset = offsets[keyIndex];
+            System.arraycopy(trigram.indices, 0, postings, offset, trigram.count);
+            offsets[keyIndex + 1] = offset + trigram.count;
+        }
+    }
+
+    private static long key(char first, char second, char third) {
+        return ((long)first << 32) | ((long)second << 16) | third;
+    }
+
+    /**
+     * Find the launchables that could match a query. The query must have been lowercased in the
+     * same locale as the names we were built from.
+     *
+     * @param candidates Gets the ascending indices of the candidates, needs room for all names
+     * @return The number of candidates, or -1 if the query has no words long enough to look up
+     * and all launchables need checking
+     */
+    int getCandidates(CaseInsensitiveQuery query, int[] candidates) {
+        int count = -1;
+
+        // Indexed loop, iterators are garbage
+        List<CaseInsensitive> words = query.getWords();
+        for (int i = 0; i < words.size(); i++) {
+            String lowercase = words.get(i).getLowercase();
+            for (int start = 0; start + 3 <= lowercase.length(); start++) {
+                int keyIndex = Arrays.binarySearch(keys, key(
+                        lowercase.charAt(start),
+                        lowercase.charAt(start + 1),
+                        lowercase.charAt(start + 2)));
+                if (keyIndex < 0) {
+                    return 0;
+                }
+
+                int from = offsets[keyIndex];
+                int to = offsets[keyIndex + 1];
+                if (count < 0) {
+                    System.arraycopy(postings, from, candidates, 0, to - from);
+                    count = to - from;
+                } else {
+                    count = intersect(candidates, count, from, to);
+                }
+                if (count == 0) {
+                    return 0;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Keep only the candidates that are also in {@code postings[from..to]}.
+     *
+     * @return The number of candidates left, first in the array
+     */
+    private int intersect(int[] candidates, int count, int from, int to) {
+        int kept = 0;
+        int posting = from;
+        for (int i = 0; i < count && posting < to; i++) {
+            int candidate = candidates[i];
+            while (posting < to && postings[posting] < candidate) {
+                posting++;
+            }
+            if (posting < to && postings[posting] == candidate) {
+                candidates[kept++] = candidate;
+            }
+        }
+        return kept;
+    }
+}
@@ -28,8 +28,14 @@ package com.gmail.walles.johan.cleverdrawer;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
 public class CaseInsensitiveQueryTest {
     @Test
     public void emptyQueryShouldMatchAnything() {
@@ -69,4 +75,171 @@ public class CaseInsensitiveQueryTest {
         assertThat(new CaseInsensitiveQuery("mitt telenor ").matches(new CaseInsensitive("Mitt Telenor")), is(true));
         assertThat(new CaseInsensitiveQuery("  mitt  telenor   ").matches(new CaseInsensitive("Mitt Telenor")), is(true));
     }
+
+    @Test
+    public void testNarrows() {
+        CaseInsensitiveQuery tele = new CaseInsensitiveQuery("tele");
+        assertThat(new CaseInsensitiveQuery("telen").narrows(tele), is(true));
+        assertThat(new CaseInsensitiveQuery("TELE mitt").narrows(tele), is(true));
+        assertThat(new CaseInsensitiveQuery("tele").narrows(tele), is(true));
+        assertThat(new CaseInsensitiveQuery("tele").narrows(new CaseInsensitiveQuery("")), is(true));
+
+        assertThat(new CaseInsensitiveQuery("tel").narrows(tele), is(false));
+        assertThat(new CaseInsensitiveQuery("te le").narrows(tele), is(false));
+        assertThat(new CaseInsensitiveQuery("").narrows(tele), is(false));
+    }
+
+    @Test
+    public void testSignature() {
+        assertThat(CaseInsensitive.signature(""), is(0L));
+        assertThat(CaseInsensitive.signature("ab"), is(CaseInsensitive.signature("ba")));
+        assertThat(CaseInsensitive.signature("a") == CaseInsensitive.signature("b"), is(false));
+        assertThat(CaseInsensitive.signature("0") == CaseInsensitive.signature("9"), is(false));
+
+        // Non ASCII characters must end up in some bucket
+        assertThat(CaseInsensitive.signature("\u00e5") == 0, is(false));
+
+        assertThat(new CaseInsensitiveQuery("g\u00e5").matches(new CaseInsensitive("G\u00c5S")),
+                is(true));
+        assertThat(new CaseInsensitiveQuery("g\u00e5").matches(new CaseInsensitive("GAS")),
+                is(false));
+    }
+
+    /**
+     * Verify that rejecting by signature never changes what matches.
+     */
+    @Test
+    public void testSignatureAgreesWithContains() {
+        Random random = new Random(42);
+        List<CaseInsensitive> names = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            String name = randomWord(random, 3, 8) + " " + randomWord(random, 3, 8);
+            names.add(new CaseInsensitive(name));
+        }
+
+        // What people type, one keystroke at a time
+        int matching = 0;
+        int rejected = 0;
+        for (int i = 0; i < 20; i++) {
+            String word = randomWord(random, 4, 4);
+            for (int length = 1; length <= word.length(); length++) {
+                CaseInsensitiveQuery query = new CaseInsensitiveQuery(word.substring(0, length));
+                for (CaseInsensitive name: names) {
+                    boolean matches = query.matches(name);
+                    assertThat(matches, is(containsAll(name, query)));
+                    if (matches) {
+                        matching++;
+                    }
+                    if ((name.getSignature() & query.getSignature()) != query.getSignature()) {
+                        rejected++;
+                    }
+                }
+            }
+        }
+
+        // Make sure both paths have been exercised
+        assertThat(matching > 0, is(true));
+        assertThat(rejected > 0, is(true));
+    }
+
+    /**
+     * Measure how many names the signatures reject, and how much faster that makes matching.
+     * <p>
+     * This doesn't assert anything about timings since those vary between machines, look at the
+     * test output for the numbers. Correctness is covered by
+     * {@link #testSignatureAgreesWithContains()}.
+     * <p>
+     * Slow, only runs with {@code -Dbenchmarks=true}.
+     */
+    @Test
+    public void testSignatureBenchmark() {
+        Assume.assumeTrue("Benchmarks disabled", Boolean.getBoolean("benchmarks"));
+
+        final int NAME_COUNT = 20_000;
+        final int ROUNDS = 5;
+
+        Random random = new Random(NAME_COUNT);
+        List<CaseInsensitive> names = new ArrayList<>(NAME_COUNT);
+        for (int i = 0; i < NAME_COUNT; i++) {
+            String name = randomWord(random, 3, 8) + " " + randomWord(random, 3, 8);
+            names.add(new CaseInsensitive(name));
+        }
+
+        // What people type, one keystroke at a time
+        List<CaseInsensitiveQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String word = randomWord(random, 4, 4);
+            for (int length = 1; length <= word.length(); length++) {
+                queries.add(new CaseInsensitiveQuery(word.substring(0, length)));
+            }
+        }
+
+        // Warm up, this also lowercases all names
+        int rejected = 0;
+        int matching = 0;
+        for (CaseInsensitiveQuery query: queries) {
+            for (CaseInsensitive name: names) {
+                if (query.matches(name)) {
+                    matching++;
+                }
+                if ((name.getSignature() & query.getSignature()) != query.getSignature()) {
+                    rejected++;
+                }
+            }
+        }
+
+        int count = 0;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (CaseInsensitiveQuery query: queries) {
+                for (CaseInsensitive name: names) {
+                    if (containsAll(name, query)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            for (CaseInsensitiveQuery query: queries) {
+                for (CaseInsensitive name: names) {
+                    if (query.matches(name)) {
+                        count++;
+                    }
+                }
+            }
+        }
+        long t2 = System.nanoTime();
+        assertThat(count, is(2 * ROUNDS * matching));
+
+        double containsMs = (t1 - t0) / 1e6 / ROUNDS;
+        double signatureMs = (t2 - t1) / 1e6 / ROUNDS;
+        long checks = (long)NAME_COUNT * queries.size();
+        System.out.println(String.format(Locale.ROOT,
+                "Matching %d names against %d queries: %.0f%% rejected by signature,"
+                        + " contains() only %.1fms, with signature %.1fms (%.1fx)",
+                NAME_COUNT, queries.size(), 100.0 * rejected / checks,
+                containsMs, signatureMs, containsMs / signatureMs));
+    }
+
+    /**
+     * Matching without signatures.
+     */
+    private static boolean containsAll(CaseInsensitive name, CaseInsensitiveQuery query) {
+        for (CaseInsensitive word: query.getWords()) {
+            if (!name.getLowercase().contains(word.getLowercase())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String randomWord(Random random, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char)('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
 }
@@ -33,57 +33,69 @@ import static org.hamcrest.Matchers.empty;
 import android.content.Intent;
 import android.graphics.drawable.Drawable;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.hamcrest.Matchers;
 import org.junit.Assert;
-import org.junit.Rule;
+import org.junit.Assume;
 import org.junit.Test;
-import org.junit.rules.TemporaryFolder;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import androidx.annotation.Nullable;
 
 public class DatabaseUtilsTest {
-    @SuppressWarnings("CanBeFinal")
-    @Rule
-    public TemporaryFolder tempdir = new TemporaryFolder();
+    @Test
+    public void testReadOldNameCacheFormat() throws Exception {
+        byte[] json = "{\"id: 1\": \"name: One\", \"id: 2\": \"name: Two\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        LaunchableIds launchableIds = new LaunchableIds();
+        CachedName[] cache = DatabaseUtils.decodeNameCache(json, launchableIds)
+                .get(Locale.getDefault().toString());
+
+        Assert.assertThat(cache[launchableIds.lookup("id: 1")].name, is("name: One"));
+        Assert.assertThat(cache[launchableIds.lookup("id: 2")].name, is("name: Two"));
+    }
 
     @Test
-    public void testNameCaching() throws Exception {
-        // Create an empty database
-        File dbFile = new File(tempdir.getRoot(), "testFile");
-
-        // Populate cache with some mappings
-        Launchable l1 = new IntentLaunchable("id: 1", new CaseInsensitive("name: One"));
-        Launchable l2 = new IntentLaunchable("id: 2", new CaseInsensitive("name: Two"));
-        DatabaseUtils.cacheTrueNames(dbFile, Arrays.asList(l1, l2));
-
-        // Populate some new launchables with those mappings, from a new data source to simulate
-        // app restart
-        l1 = new IntentLaunchable("id: 1", null);
-        l2 = new IntentLaunchable("id: 2", null);
-        Map<String, String> cache = DatabaseUtils.readIdToNameCache(dbFile);
-        DatabaseUtils.nameLaunchablesFromCache(cache, Arrays.asList(l1, l2));
-
-        // Verify that the new launchables got the right names
-        Assert.assertThat(l1.getName(), is(new CaseInsensitive("name: One")));
-        Assert.assertThat(l2.getName(), is(new CaseInsensitive("name: Two")));
+    public void testReadUnpartitionedNameCache() throws Exception {
+        String otherLocale =
+                Locale.getDefault().equals(Locale.GERMANY) ? "fr_FR" : Locale.GERMANY.toString();
+        byte[] json = ("[{\"name\": \"name: One\", \"locale\": \"" + otherLocale + "\"},"
+                + " {\"name\": \"name: Two\"}]").getBytes(StandardCharsets.UTF_8);
+
+        // Names without a locale end up with the current locale
+        NameCachePartitions partitions = DatabaseUtils.decodeNameCache(json, new LaunchableIds());
+        CachedName[] cache = partitions.get(Locale.getDefault().toString());
+        Assert.assertThat(cache[0], is((CachedName)null));
+        Assert.assertThat(cache[1].name, is("name: Two"));
+        Assert.assertThat(partitions.get(otherLocale)[0].name, is("name: One"));
     }
 
     @Test
     public void testScoreLaunchablesOnlyScoreLaunched() {
+        LaunchableIds launchableIds = new LaunchableIds();
         DummyLaunchable interesting = new DummyLaunchable("interesting");
         DummyLaunchable boring = new DummyLaunchable("boring");
+        interesting.setIdIndex(launchableIds.intern(interesting.getId()));
+        boring.setIdIndex(launchableIds.intern(boring.getId()));
+
+        // Left over from when boring was launched, should be cleared
+        boring.setScore(3);
 
         List<Launchable> launchables = new LinkedList<>();
         launchables.add(interesting);
@@ -96,7 +108,8 @@ public class DatabaseUtilsTest {
         List<DatabaseUtils.LaunchMetadata> launches = new LinkedList<>();
         launches.add(launch);
 
-        DatabaseUtils.scoreLaunchables(launchables, launches);
+        DatabaseUtils.scoreLaunchables(
+                launchables, LaunchArrays.fromMetadata(launches, launchableIds), launchableIds);
 
         Assert.assertThat(interesting.hasScore(), is(true));
         Assert.assertThat(boring.hasScore(), is(false));
@@ -278,31 +291,164 @@ public class DatabaseUtilsTest {
     }
 
     private List<DatabaseUtils.LaunchMetadata> loadLaunchesFromFile() throws IOException {
-        List<DatabaseUtils.LaunchMetadata> launchHistory;
+        LaunchableIds launchableIds = new LaunchableIds();
+        LaunchArrays decoded;
         try (InputStream launchHistoryStream =
                      getClass().getClassLoader().getResourceAsStream("real-statistics-example.json"))
         {
-            launchHistory = DatabaseUtils.loadLaunches(launchHistoryStream);
+            decoded = DatabaseUtils.decodeLaunches(
+                    launchHistoryStream, launchableIds, Integer.MAX_VALUE);
+        }
+
+        List<DatabaseUtils.LaunchMetadata> launchHistory = new ArrayList<>(decoded.size());
+        for (int i = 0; i < decoded.size(); i++) {
+            DatabaseUtils.LaunchMetadata launch = new DatabaseUtils.LaunchMetadata();
+            launch.id = launchableIds.getId(decoded.getIdIndex(i));
+            launch.timestamp = decoded.getTimestamp(i);
+            launchHistory.add(launch);
         }
         Assert.assertThat(launchHistory, is(not(empty())));
 
         return launchHistory;
     }
 
+    private byte[] readExampleStatistics() throws IOException {
+        try (InputStream launchHistoryStream =
+                     getClass().getClassLoader().getResourceAsStream("real-statistics-example.json"))
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int count; (count = launchHistoryStream.read(buffer)) != -1; ) {
+                bytes.write(buffer, 0, count);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static List<DatabaseUtils.LaunchMetadata> databindLaunches(byte[] json)
+            throws IOException
+    {
+        TypeReference<LinkedList<DatabaseUtils.LaunchMetadata>> typeRef
+                = new TypeReference<LinkedList<DatabaseUtils.LaunchMetadata>>() {};
+        return new ObjectMapper().readValue(json, typeRef);
+    }
+
+    @Test
+    public void testDecodeLaunchesMatchesDatabind() throws IOException {
+        byte[] json = readExampleStatistics();
+        List<DatabaseUtils.LaunchMetadata> expected = databindLaunches(json);
+
+        LaunchableIds launchableIds = new LaunchableIds();
+        LaunchArrays decoded = DatabaseUtils.decodeLaunches(
+                new ByteArrayInputStream(json), launchableIds, Integer.MAX_VALUE);
+
+        Assert.assertThat(decoded.size(), is(expected.size()));
+        for (int i = 0; i < decoded.size(); i++) {
+            Assert.assertThat(launchableIds.getId(decoded.getIdIndex(i)), is(expected.get(i).id));
+            Assert.assertThat(decoded.getTimestamp(i), is(expected.get(i).timestamp));
+        }
+    }
+
+    @Test
+    public void testDecodeLaunchesTail() throws IOException {
+        byte[] json = readExampleStatistics();
+        List<DatabaseUtils.LaunchMetadata> all = databindLaunches(json);
+        List<DatabaseUtils.LaunchMetadata> expected = all.subList(
+                all.size() - DatabaseUtils.SCORING_MAX_LAUNCH_COUNT, all.size());
+
+        LaunchableIds launchableIds = new LaunchableIds();
+        LaunchArrays decoded = DatabaseUtils.decodeLaunches(new ByteArrayInputStream(json),
+                launchableIds, DatabaseUtils.SCORING_MAX_LAUNCH_COUNT);
+
+        Assert.assertThat(decoded.size(), is(DatabaseUtils.SCORING_MAX_LAUNCH_COUNT));
+        for (int i = 0; i < decoded.size(); i++) {
+            Assert.assertThat(launchableIds.getId(decoded.getIdIndex(i)), is(expected.get(i).id));
+            Assert.assertThat(decoded.getTimestamp(i), is(expected.get(i).timestamp));
+        }
+    }
+
+    @Test
+    public void testDecodeLaunchesShortHistory() throws IOException {
+        byte[] json = "[{\"id\":\"a\",\"timestamp\":1},{\"id\":\"b\",\"timestamp\":2}]"
+                .getBytes(StandardCharsets.UTF_8);
+
+        LaunchableIds launchableIds = new LaunchableIds();
+        LaunchArrays decoded =
+                DatabaseUtils.decodeLaunches(new ByteArrayInputStream(json), launchableIds, 5);
+
+        Assert.assertThat(decoded.size(), is(2));
+        Assert.assertThat(launchableIds.getId(decoded.getIdIndex(0)), is("a"));
+        Assert.assertThat(decoded.getTimestamp(1), is(2L));
+    }
+
+    /**
+     * Compare streaming launch history decoding to Jackson databind.
+     * <p>
+     * This doesn't assert anything about timings since those vary between machines, look at the
+     * test output for the numbers. Correctness is covered by the other decoding tests.
+     * <p>
+     * Slow, only runs with {@code -Dbenchmarks=true}.
+     */
+    @Test
+    public void testDecodeLaunchesBenchmark() throws IOException {
+        Assume.assumeTrue("Benchmarks disabled", Boolean.getBoolean("benchmarks"));
+
+        final int ROUNDS = 200;
+        byte[] json = readExampleStatistics();
+
+        // Warm up
+        for (int i = 0; i < ROUNDS; i++) {
+            databindLaunches(json);
+            DatabaseUtils.decodeLaunches(
+                    new ByteArrayInputStream(json), new LaunchableIds(), Integer.MAX_VALUE);
+            DatabaseUtils.decodeLaunches(new ByteArrayInputStream(json),
+                    new LaunchableIds(), DatabaseUtils.SCORING_MAX_LAUNCH_COUNT);
+        }
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            databindLaunches(json);
+        }
+        long t1 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            DatabaseUtils.decodeLaunches(
+                    new ByteArrayInputStream(json), new LaunchableIds(), Integer.MAX_VALUE);
+        }
+        long t2 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            DatabaseUtils.decodeLaunches(new ByteArrayInputStream(json),
+                    new LaunchableIds(), DatabaseUtils.SCORING_MAX_LAUNCH_COUNT);
+        }
+        long t3 = System.nanoTime();
+
+        double databindUs = (t1 - t0) / 1000.0 / ROUNDS;
+        double streamingUs = (t2 - t1) / 1000.0 / ROUNDS;
+        double tailUs = (t3 - t2) / 1000.0 / ROUNDS;
+        System.out.println(String.format(Locale.ROOT,
+                "Decoding %d bytes of launch history: databind %.0fus, streaming %.0fus (%.1fx),"
+                        + " streaming last %d %.0fus (%.1fx)",
+                json.length,
+                databindUs,
+                streamingUs, databindUs / streamingUs,
+                DatabaseUtils.SCORING_MAX_LAUNCH_COUNT, tailUs, databindUs / tailUs));
+    }
+
     private Collection<SimulatedLaunch> simulateLaunches(List<DatabaseUtils.LaunchMetadata> launchHistory) {
         List<SimulatedLaunch> returnMe = new ArrayList<>();
-        List<String> lastOrder = Collections.emptyList();
+        LaunchableIds launchableIds = new LaunchableIds();
+        int[] lastOrder = new int[0];
         for (DatabaseUtils.LaunchMetadata launch: launchHistory) {
             // Replay launch history until before our current launch
             long now = launch.timestamp;
             List<DatabaseUtils.LaunchMetadata> previousLaunches =
                     beforeTimestamp(launchHistory, now);
-            List<Launchable> launchables = listLaunchables(previousLaunches);
+            List<Launchable> launchables = listLaunchables(previousLaunches, launchableIds);
 
-            DatabaseUtils.scoreLaunchables(launchables, previousLaunches);
+            DatabaseUtils.scoreLaunchables(launchables,
+                    LaunchArrays.fromMetadata(previousLaunches, launchableIds), launchableIds);
             Collections.sort(launchables);
             launchables = StabilityUtils.stabilize(lastOrder, launchables);
-            lastOrder = extractIds(launchables);
+            lastOrder = extractIdIndices(launchables);
 
             SimulatedLaunch simulatedLaunch = new SimulatedLaunch();
             simulatedLaunch.launchables = launchables;
@@ -313,18 +459,20 @@ public class DatabaseUtilsTest {
         return returnMe;
     }
 
-    private List<String> extractIds(List<Launchable> launchables) {
-        List<String> ids = new LinkedList<>();
-        for (Launchable launchable: launchables) {
-            ids.add(launchable.getId());
+    private int[] extractIdIndices(List<Launchable> launchables) {
+        int[] idIndices = new int[launchables.size()];
+        for (int i = 0; i < idIndices.length; i++) {
+            idIndices[i] = launchables.get(i).getIdIndex();
         }
-        return ids;
+        return idIndices;
     }
 
     /**
      * Create a list of launchables from the IDs in the launch metadata.
      */
-    private List<Launchable> listLaunchables(List<DatabaseUtils.LaunchMetadata> launches) {
+    private List<Launchable> listLaunchables(
+            List<DatabaseUtils.LaunchMetadata> launches, LaunchableIds launchableIds)
+    {
         Map<String, Launchable> idToLaunchable = new HashMap<>();
         for (DatabaseUtils.LaunchMetadata launch: launches) {
             if (idToLaunchable.containsKey(launch.id)) {
@@ -359,6 +507,7 @@ public class DatabaseUtilsTest {
                 }
             };
             launchable.setName(new CaseInsensitive(launch.id));
+            launchable.setIdIndex(launchableIds.intern(launch.id));
             idToLaunchable.put(launch.id, launchable);
         }
 
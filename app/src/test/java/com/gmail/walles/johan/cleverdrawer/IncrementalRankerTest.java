@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class IncrementalRankerTest {
+    private final LaunchableIds launchableIds = new LaunchableIds();
+
+    private Launchable createLaunchable(String id) {
+        Launchable launchable = new DummyLaunchable(id);
+        launchable.setIdIndex(launchableIds.intern(id));
+        return launchable;
+    }
+
+    private IncrementalRanker createRanker(
+            int incrementCount, LaunchableAdapter.PartialResultListener partialListener)
+    {
+        return new IncrementalRanker(
+                new ScoreTable(launchableIds), new int[0], incrementCount, partialListener);
+    }
+
+    @Test
+    public void testPartialResultsKeepShownOrder() {
+        Launchable a = createLaunchable("a");
+        Launchable b = createLaunchable("b");
+        Launchable c = createLaunchable("c");
+        Launchable d = createLaunchable("d");
+
+        List<List<Launchable>> partials = new ArrayList<>();
+        IncrementalRanker ranker = createRanker(3, partials::add);
+        Assert.assertThat(ranker.add(1, Arrays.asList(d, b)), is(Arrays.asList(b, d)));
+
+        // Unscored launchables are sorted by name, the new ones go in between the shown ones
+        Assert.assertThat(ranker.add(0, Arrays.asList(c, a)), is(Arrays.asList(a, b, c, d)));
+        Assert.assertThat(partials.size(), is(2));
+
+        ranker.add(2, Collections.emptyList());
+        Assert.assertThat(ranker.getLaunchables(), is(Arrays.asList(a, b, c, d)));
+    }
+
+    @Test
+    public void testDuplicateIdsBySourcePriority() {
+        Launchable fromFirst = createLaunchable("same");
+        Launchable fromSecond = createLaunchable("same");
+        Launchable other = createLaunchable("other");
+
+        // The lower priority source finishing first must not matter
+        IncrementalRanker ranker = createRanker(2, null);
+        Assert.assertThat(ranker.add(1, Arrays.asList(fromSecond, other)),
+                is(Arrays.asList(other, fromSecond)));
+        Assert.assertThat(ranker.add(0, Collections.singletonList(fromFirst)),
+                is(Arrays.asList(other, fromFirst)));
+    }
+
+    @Test
+    public void testPartialResults() {
+        List<List<Launchable>> partials = new ArrayList<>();
+        IncrementalRanker ranker = createRanker(2, partials::add);
+
+        List<Launchable> partial = ranker.add(0, Collections.singletonList(createLaunchable("a")));
+        Assert.assertThat(partials, is(Collections.singletonList(partial)));
+
+        // No partial result for the last increment
+        ranker.add(1, Collections.singletonList(createLaunchable("b")));
+        Assert.assertThat(partials.size(), is(1));
+    }
+
+    @Test
+    public void testOnlyFinalResultIsUniquified() {
+        Launchable first = createLaunchable("com.first.Launchable");
+        first.setName(new CaseInsensitive("Same"));
+        Launchable second = createLaunchable("com.second.Launchable");
+        second.setName(new CaseInsensitive("Same"));
+
+        List<List<Launchable>> partials = new ArrayList<>();
+        IncrementalRanker ranker = createRanker(2, partials::add);
+        ranker.add(0, Arrays.asList(first, second));
+
+        // These have been published, renaming them would change them under the listener's feet
+        Assert.assertThat(first.getName().toString(), is("Same"));
+        Assert.assertThat(second.getName().toString(), is("Same"));
+
+        List<Launchable> ranked = ranker.add(1, Collections.emptyList());
+        Assert.assertThat(ranked.size(), is(2));
+        Assert.assertThat(ranked.get(0).getName().equals(ranked.get(1).getName()), is(false));
+
+        // Not even the final result may rename what has been published
+        Assert.assertThat(first.getName().toString(), is("Same"));
+        Assert.assertThat(second.getName().toString(), is("Same"));
+    }
+
+    @Test
+    public void testMissingSource() {
+        Launchable a = createLaunchable("a");
+        IncrementalRanker ranker = createRanker(2, null);
+        ranker.add(0, Collections.singletonList(a));
+
+        // Source 1 failed and never got added
+        Assert.assertThat(ranker.getLaunchables(), is(Collections.singletonList(a)));
+    }
+}
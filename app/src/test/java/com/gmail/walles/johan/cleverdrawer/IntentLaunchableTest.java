@@ -59,13 +59,17 @@ public class IntentLaunchableTest {
 
     @Test
     public void testAlphabeticFallback() {
-        File dbFile = new File(tempdir.getRoot(), "testFile");
+        LaunchHistory launchHistory = new LaunchHistory(
+                new File(tempdir.getRoot(), "testFile"),
+                new LaunchableIds(new File(tempdir.getRoot(), "testIds")),
+                null);
         Launchable ape = new IntentLaunchable("Ape", new CaseInsensitive("Ape"));
         Launchable zebra = new IntentLaunchable("Zebra", new CaseInsensitive("Zebra"));
 
         List<Launchable> launchables = Arrays.asList(zebra, ape);
 
-        DatabaseUtils.scoreLaunchables(launchables, DatabaseUtils.loadLaunches(dbFile));
+        DatabaseUtils.scoreLaunchables(
+                launchables, launchHistory.getLaunches(), launchHistory.getLaunchableIds());
         Collections.sort(launchables);
 
         Assert.assertThat(launchables, is(Arrays.asList(ape, zebra)));
@@ -73,14 +77,19 @@ public class IntentLaunchableTest {
 
     @Test
     public void testLaunchedBetterThanNotLaunched() throws Exception {
-        File dbFile = new File(tempdir.getRoot(), "testFile");
+        LaunchHistory launchHistory = new LaunchHistory(
+                new File(tempdir.getRoot(), "testFile"),
+                new LaunchableIds(new File(tempdir.getRoot(), "testIds")),
+                null);
         Launchable ape = new IntentLaunchable("Ape", new CaseInsensitive("Ape"));
         Launchable zebra = new IntentLaunchable("Zebra", new CaseInsensitive("Zebra"));
 
         List<Launchable> launchables = Arrays.asList(ape, zebra);
-        DatabaseUtils.registerLaunch(dbFile, zebra);
+        launchHistory.append(zebra.getId(), System.currentTimeMillis());
+        zebra.setIdIndex(launchHistory.getLaunchableIds().lookup(zebra.getId()));
 
-        DatabaseUtils.scoreLaunchables(launchables, DatabaseUtils.loadLaunches(dbFile));
+        DatabaseUtils.scoreLaunchables(
+                launchables, launchHistory.getLaunches(), launchHistory.getLaunchableIds());
         Collections.sort(launchables);
 
         Assert.assertThat(launchables, is(Arrays.asList(zebra, ape)));
@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LaunchHistoryTest {
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    private LaunchHistory createLaunchHistory(File legacyFile) {
+        return new LaunchHistory(
+                new File(tempdir.getRoot(), "history"),
+                new LaunchableIds(new File(tempdir.getRoot(), "ids")),
+                legacyFile);
+    }
+
+    @Test
+    public void testAppendAndLoad() throws IOException {
+        LaunchHistory testMe = createLaunchHistory(null);
+        Assert.assertThat(testMe.load().size(), is(0));
+
+        testMe.append("a", 1);
+        testMe.append("b", 2);
+        testMe.append("a", 3);
+
+        // Load from a new instance to simulate an app restart
+        List<DatabaseUtils.LaunchMetadata> launches = createLaunchHistory(null).load();
+        Assert.assertThat(launches.size(), is(3));
+        Assert.assertThat(launches.get(0).id, is("a"));
+        Assert.assertThat(launches.get(0).timestamp, is(1L));
+        Assert.assertThat(launches.get(1).id, is("b"));
+        Assert.assertThat(launches.get(1).timestamp, is(2L));
+        Assert.assertThat(launches.get(2).id, is("a"));
+        Assert.assertThat(launches.get(2).timestamp, is(3L));
+    }
+
+    @Test
+    public void testWrapAround() throws IOException {
+        LaunchHistory testMe = createLaunchHistory(null);
+        int launchCount = LaunchHistory.MAX_LAUNCHES + 10;
+        for (int i = 0; i < launchCount; i++) {
+            testMe.append("id" + (i % 7), i);
+        }
+
+        LaunchLog launches = createLaunchHistory(null).getLaunches();
+        Assert.assertThat(launches.size(), is(LaunchHistory.MAX_LAUNCHES));
+        Assert.assertThat(launches.getTimestamp(0), is(10L));
+        Assert.assertThat(launches.getIdIndex(0), is(3));
+        Assert.assertThat(launches.getTimestamp(launches.size() - 1), is(launchCount - 1L));
+    }
+
+    @Test
+    public void testViewIsStable() throws IOException {
+        LaunchHistory testMe = createLaunchHistory(null);
+        testMe.append("a", 1);
+        LaunchLog view = testMe.getLaunches();
+
+        testMe.append("b", 2);
+        Assert.assertThat(view.size(), is(1));
+        Assert.assertThat(testMe.getLaunches().size(), is(2));
+    }
+
+    @Test
+    public void testCorruptHeader() throws IOException {
+        File file = new File(tempdir.getRoot(), "history");
+        createLaunchHistory(null).append("a", 1);
+
+        try (RandomAccessFile corruptMe = new RandomAccessFile(file, "rw")) {
+            // Head index
+            corruptMe.seek(12);
+            corruptMe.writeInt(-5);
+        }
+
+        LaunchHistory testMe = createLaunchHistory(null);
+        Assert.assertThat(testMe.getLaunches().size(), is(0));
+
+        testMe.append("b", 2);
+        List<DatabaseUtils.LaunchMetadata> launches = testMe.load();
+        Assert.assertThat(launches.size(), is(1));
+        Assert.assertThat(launches.get(0).id, is("b"));
+    }
+
+    @Test
+    public void testMigrateFromLegacyFile() throws IOException {
+        List<DatabaseUtils.LaunchMetadata> legacyLaunches = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            DatabaseUtils.LaunchMetadata launch = new DatabaseUtils.LaunchMetadata();
+            launch.id = "legacy" + i;
+            launch.timestamp = 100 + i;
+            legacyLaunches.add(launch);
+        }
+        File legacyFile = new File(tempdir.getRoot(), "statistics.json");
+        DatabaseUtils.saveLaunches(legacyFile, legacyLaunches);
+
+        LaunchHistory testMe = createLaunchHistory(legacyFile);
+        testMe.append("new", 200);
+
+        Assert.assertThat(legacyFile.exists(), is(false));
+
+        List<DatabaseUtils.LaunchMetadata> launches = createLaunchHistory(legacyFile).load();
+        Assert.assertThat(launches.size(), is(4));
+        Assert.assertThat(launches.get(0).id, is("legacy0"));
+        Assert.assertThat(launches.get(2).id, is("legacy2"));
+        Assert.assertThat(launches.get(2).timestamp, is(102L));
+        Assert.assertThat(launches.get(3).id, is("new"));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class LaunchRecorderTest {
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    private LaunchHistory createLaunchHistory() {
+        return new LaunchHistory(
+                new File(tempdir.getRoot(), "history"),
+                new LaunchableIds(new File(tempdir.getRoot(), "ids")),
+                null);
+    }
+
+    private LaunchRecorder createLaunchRecorder() {
+        return new LaunchRecorder(createLaunchHistory(), new File(tempdir.getRoot(), "scores"));
+    }
+
+    @Test
+    public void testRecordAndFlush() {
+        LaunchRecorder testMe = createLaunchRecorder();
+        testMe.record("a", 1);
+        testMe.record("b", 2);
+        testMe.record("a", 3);
+        testMe.flush();
+
+        LaunchLog launches = createLaunchHistory().getLaunches();
+        LaunchableIds launchableIds = testMe.getLaunchableIds();
+        Assert.assertThat(launches.size(), is(3));
+        Assert.assertThat(launchableIds.getId(launches.getIdIndex(0)), is("a"));
+        Assert.assertThat(launchableIds.getId(launches.getIdIndex(1)), is("b"));
+        Assert.assertThat(launchableIds.getId(launches.getIdIndex(2)), is("a"));
+        Assert.assertThat(launches.getTimestamp(2), is(3L));
+    }
+
+    @Test
+    public void testUnflushedLaunchesAreVisible() {
+        LaunchRecorder testMe = createLaunchRecorder();
+        for (int i = 0; i < 1000; i++) {
+            testMe.record("id" + (i % 7), i);
+
+            // Whether or not the writer has caught up, each launch should be there exactly once
+            LaunchLog launches = testMe.getLaunches();
+            Assert.assertThat(launches.size(), is(i + 1));
+            Assert.assertThat(launches.getTimestamp(i), is((long)i));
+        }
+
+        testMe.flush();
+        Assert.assertThat(testMe.getLaunchHistory().getLaunches().size(), is(1000));
+    }
+
+    @Test
+    public void testScoresIncludeUnflushedLaunches() {
+        LaunchRecorder testMe = createLaunchRecorder();
+        int launchCount = DatabaseUtils.SCORING_MAX_LAUNCH_COUNT + 100;
+        for (int i = 0; i < launchCount; i++) {
+            testMe.record(i % 3 == 0 ? "a" : "b", i);
+        }
+
+        LaunchableIds launchableIds = testMe.getLaunchableIds();
+        ScoreTable expected =
+                ScoreTable.fromLaunches(testMe.getLaunches(), launchableIds);
+        ScoreTable scores = testMe.getScores();
+        for (String id: new String[] { "a", "b" }) {
+            int idIndex = launchableIds.lookup(id);
+            Assert.assertThat(scores.getCount(idIndex), is(expected.getCount(idIndex)));
+        }
+
+        testMe.flush();
+
+        // A new recorder should get the same scores from the score table file
+        ScoreTable reloaded = createLaunchRecorder().getScores();
+        Assert.assertThat(reloaded.getAppendCount(), is((long)launchCount));
+        for (String id: new String[] { "a", "b" }) {
+            int idIndex = launchableIds.lookup(id);
+            Assert.assertThat(reloaded.getCount(idIndex), is(expected.getCount(idIndex)));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class LaunchableAdapterReuseTest {
+    @Test
+    public void testNothingChanged() {
+        List<Launchable> shown = Arrays.asList(new DummyLaunchable("a"), new DummyLaunchable("b"));
+        List<Launchable> loaded = Arrays.asList(new DummyLaunchable("a"), new DummyLaunchable("b"));
+
+        Assert.assertThat(LaunchableAdapter.reuseUnchanged(shown, loaded), sameInstance(shown));
+    }
+
+    @Test
+    public void testReorderedAndAdded() {
+        Launchable shownA = new DummyLaunchable("a");
+        Launchable shownB = new DummyLaunchable("b");
+        List<Launchable> shown = Arrays.asList(shownA, shownB);
+
+        Launchable loadedC = new DummyLaunchable("c");
+        List<Launchable> loaded =
+                Arrays.asList(new DummyLaunchable("b"), loadedC, new DummyLaunchable("a"));
+
+        List<Launchable> merged = LaunchableAdapter.reuseUnchanged(shown, loaded);
+        Assert.assertThat(merged.size(), is(3));
+        Assert.assertThat(merged.get(0), sameInstance(shownB));
+        Assert.assertThat(merged.get(1), sameInstance(loadedC));
+        Assert.assertThat(merged.get(2), sameInstance(shownA));
+    }
+
+    @Test
+    public void testRenamedAndRescored() {
+        Launchable shownA = new DummyLaunchable("a");
+        Launchable shownB = new DummyLaunchable("b");
+        Launchable shownC = new DummyLaunchable("c");
+        List<Launchable> shown = Arrays.asList(shownA, shownB, shownC);
+
+        Launchable loadedB = new DummyLaunchable("b");
+        loadedB.setName(new CaseInsensitive("Renamed"));
+        Launchable loadedC = new DummyLaunchable("c");
+        loadedC.setScore(2);
+        List<Launchable> loaded = Arrays.asList(new DummyLaunchable("a"), loadedB, loadedC);
+
+        List<Launchable> merged = LaunchableAdapter.reuseUnchanged(shown, loaded);
+        Assert.assertThat(merged, not(sameInstance(shown)));
+        Assert.assertThat(merged.get(0), sameInstance(shownA));
+        Assert.assertThat(merged.get(1), sameInstance(loadedB));
+        Assert.assertThat(merged.get(2), sameInstance(loadedC));
+    }
+
+    @Test
+    public void testRemoved() {
+        List<Launchable> shown = Arrays.asList(new DummyLaunchable("a"), new DummyLaunchable("b"));
+        List<Launchable> loaded = Collections.singletonList(new DummyLaunchable("b"));
+
+        List<Launchable> merged = LaunchableAdapter.reuseUnchanged(shown, loaded);
+        Assert.assertThat(merged.size(), is(1));
+        Assert.assertThat(merged.get(0), sameInstance(shown.get(1)));
+    }
+}
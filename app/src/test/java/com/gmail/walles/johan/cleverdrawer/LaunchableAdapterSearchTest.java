@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class LaunchableAdapterSearchTest {
+    @Test
+    public void testSearchExecutor() throws Exception {
+        // Creating the executor mustn't throw
+        ScheduledThreadPoolExecutor executor = LaunchableAdapter.getSearchExecutor();
+
+        Assert.assertThat(executor.allowsCoreThreadTimeOut(), is(true));
+        Assert.assertThat(executor.getKeepAliveTime(TimeUnit.SECONDS), greaterThan(0L));
+
+        // The thread should be reused between debounced searches
+        String first = executor.schedule(() -> Thread.currentThread().getName(),
+                1, TimeUnit.MILLISECONDS).get();
+        Thread searchThread = executor.submit(Thread::currentThread).get();
+        Assert.assertThat(first, is("Launchable Search"));
+        Assert.assertThat(executor.submit(Thread::currentThread).get(), is(searchThread));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+public class LaunchableFilterTest {
+    private static class CountingLaunchable extends DummyLaunchable {
+        private int touchCount;
+
+        private CountingLaunchable(String id) {
+            super(id);
+        }
+
+        @NonNull
+        @Override
+        public CaseInsensitive getName() {
+            touchCount++;
+            return super.getName();
+        }
+
+        @Override
+        public boolean matches(CaseInsensitiveQuery query) {
+            touchCount++;
+            return super.matches(query);
+        }
+    }
+
+    private final Launchable telenor = new DummyLaunchable("Mitt Telenor");
+    private final Launchable telegram = new DummyLaunchable("Telegram");
+    private final Launchable gmail = new DummyLaunchable("Gmail");
+    private final List<Launchable> launchables = Arrays.asList(telenor, telegram, gmail);
+
+    @Test
+    public void testNarrowingScansPreviousResult() {
+        LaunchableFilter filter = new LaunchableFilter();
+
+        Assert.assertThat(filter.filter(launchables, "te"),
+                is(Arrays.asList(telenor, telegram)));
+        Assert.assertThat(filter.getCheckedCount(), is(3));
+
+        // Appending characters
+        Assert.assertThat(filter.filter(launchables, "tele"),
+                is(Arrays.asList(telenor, telegram)));
+        Assert.assertThat(filter.getCheckedCount(), is(2));
+
+        // Adding a word
+        Assert.assertThat(filter.filter(launchables, "tele mitt"),
+                is(Collections.singletonList(telenor)));
+        Assert.assertThat(filter.getCheckedCount(), is(2));
+    }
+
+    @Test
+    public void testEditingRescansEverything() {
+        // Two characters or less, too short for the index
+        LaunchableFilter filter = new LaunchableFilter();
+        filter.filter(launchables, "te");
+        Assert.assertThat(filter.getCheckedCount(), is(3));
+
+        // Deleting a character doesn't narrow the search
+        Assert.assertThat(filter.filter(launchables, "t"),
+                is(Arrays.asList(telenor, telegram)));
+        Assert.assertThat(filter.getCheckedCount(), is(3));
+
+        // Neither does changing it
+        Assert.assertThat(filter.filter(launchables, "gm"),
+                is(Collections.singletonList(gmail)));
+        Assert.assertThat(filter.getCheckedCount(), is(3));
+    }
+
+    @Test
+    public void testIndexedSearchChecksOnlyCandidates() {
+        LaunchableFilter filter = new LaunchableFilter();
+
+        Assert.assertThat(filter.filter(launchables, "gma"),
+                is(Collections.singletonList(gmail)));
+        Assert.assertThat(filter.getCheckedCount(), is(1));
+
+        // Not narrowing, but "tel" is long enough for the index
+        Assert.assertThat(filter.filter(launchables, "tel"),
+                is(Arrays.asList(telenor, telegram)));
+        Assert.assertThat(filter.getCheckedCount(), is(2));
+    }
+
+    @Test
+    public void testNewLaunchablesRescansEverything() {
+        LaunchableFilter filter = new LaunchableFilter();
+        filter.filter(launchables, "te");
+
+        List<Launchable> reloaded = Arrays.asList(telenor, telegram, gmail);
+        Assert.assertThat(filter.filter(reloaded, "tel"),
+                is(Arrays.asList(telenor, telegram)));
+        Assert.assertThat(filter.getCheckedCount(), is(2));
+    }
+
+    @Test
+    public void testMatchesFoldedNames() {
+        LaunchableFilter filter = new LaunchableFilter();
+        Assert.assertThat(filter.filter(launchables, "TELE  Mitt "),
+                is(Collections.singletonList(telenor)));
+        Assert.assertThat(filter.filter(launchables, "mail"),
+                is(Collections.singletonList(gmail)));
+        Assert.assertThat(filter.filter(launchables, "gmailx"),
+                is(Collections.<Launchable>emptyList()));
+    }
+
+    /**
+     * Verify that searching works on the prepared names, without going through the launchables.
+     * <p>
+     * Anything per launchable, like getting its name or asking it whether it matches, is likely
+     * to create garbage for every keystroke.
+     */
+    @Test
+    public void testKeystrokeDoesntTouchLaunchables() {
+        final int launchableCount = 1000;
+        List<CountingLaunchable> counting = new ArrayList<>();
+        for (int i = 0; i < launchableCount; i++) {
+            counting.add(new CountingLaunchable("Launchable " + i));
+        }
+        List<Launchable> many = new ArrayList<>(counting);
+
+        LaunchableFilter filter = new LaunchableFilter();
+        filter.prepare(many);
+        for (CountingLaunchable launchable: counting) {
+            launchable.touchCount = 0;
+        }
+
+        // Both queries pass the signature check of every name but match none of them. Going
+        // back and forth between them never narrows the previous search, and they are too short
+        // for the index, so all names get compared every time.
+        for (String query: new String[] {"ul", "lu", "ul"}) {
+            Assert.assertThat(filter.filter(many, query), is(Collections.<Launchable>emptyList()));
+            Assert.assertThat(filter.getCheckedCount(), is(launchableCount));
+        }
+
+        for (CountingLaunchable launchable: counting) {
+            Assert.assertThat(launchable.getId(), launchable.touchCount, is(0));
+        }
+    }
+
+    /**
+     * Verify that a keystroke doesn't allocate anything per launchable.
+     * <p>
+     * Complements {@link #testKeystrokeDoesntTouchLaunchables()} by measuring instead of
+     * inspecting. The measurement is the best of a few keystrokes after a long warm-up, so that
+     * JIT compilation and TLAB refills don't show up as allocations.
+     */
+    @Test
+    public void testKeystrokeAllocatesNothingPerLaunchable() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean)threadBean;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        final int launchableCount = 20000;
+        List<Launchable> many = new ArrayList<>();
+        for (int i = 0; i < launchableCount; i++) {
+            many.add(new DummyLaunchable("Launchable " + i));
+        }
+
+        // Both queries pass the signature check of every name but match none of them. Going
+        // back and forth between them never narrows the previous search, and they are too short
+        // for the index, so all names get compared every time.
+        String[] queries = new String[] {"ul", "lu"};
+        LaunchableFilter filter = new LaunchableFilter();
+        for (int i = 0; i < 200; i++) {
+            // Warm up
+            filter.filter(many, queries[i % 2]);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long leastAllocated = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long before = allocations.getThreadAllocatedBytes(threadId);
+            List<Launchable> result = filter.filter(many, queries[i % 2]);
+            long allocated = allocations.getThreadAllocatedBytes(threadId) - before;
+            leastAllocated = Math.min(leastAllocated, allocated);
+
+            Assert.assertThat(result, is(Collections.<Launchable>emptyList()));
+            Assert.assertThat(filter.getCheckedCount(), is(launchableCount));
+        }
+
+        // Allocating anything at all per launchable would be at least one byte each
+        double bytesPerName = (double)leastAllocated / launchableCount;
+        Assert.assertThat(bytesPerName, lessThan(1.0));
+    }
+}
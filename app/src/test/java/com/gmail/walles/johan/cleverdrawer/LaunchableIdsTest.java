@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+public class LaunchableIdsTest {
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    @Test
+    public void testInternAndLookup() {
+        LaunchableIds testMe = new LaunchableIds();
+        Assert.assertThat(testMe.lookup("a"), is(LaunchableIds.UNKNOWN));
+
+        int a = testMe.intern("a");
+        int b = testMe.intern("b");
+        Assert.assertThat(a, is(0));
+        Assert.assertThat(b, is(1));
+        Assert.assertThat(testMe.intern("a"), is(a));
+        Assert.assertThat(testMe.lookup("b"), is(b));
+        Assert.assertThat(testMe.getId(a), is("a"));
+        Assert.assertThat(testMe.size(), is(2));
+    }
+
+    @Test
+    public void testPersistence() throws IOException {
+        File file = new File(tempdir.getRoot(), "ids");
+
+        LaunchableIds first = new LaunchableIds(file);
+        first.intern("a");
+        first.intern("ö");
+        first.persist();
+        first.intern("not persisted");
+
+        LaunchableIds second = new LaunchableIds(file);
+        Assert.assertThat(second.size(), is(2));
+        Assert.assertThat(second.lookup("a"), is(0));
+        Assert.assertThat(second.lookup("ö"), is(1));
+        Assert.assertThat(second.lookup("not persisted"), is(LaunchableIds.UNKNOWN));
+
+        // Appending from the second instance should go after what the first one persisted
+        Assert.assertThat(second.intern("c"), is(2));
+        second.persist();
+        Assert.assertThat(new LaunchableIds(file).lookup("c"), is(2));
+    }
+
+    @Test
+    public void testPartialLastLine() throws IOException {
+        File file = new File(tempdir.getRoot(), "ids");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("a\nb\npartial".getBytes(StandardCharsets.UTF_8));
+        }
+
+        LaunchableIds testMe = new LaunchableIds(file);
+        Assert.assertThat(testMe.size(), is(2));
+        Assert.assertThat(testMe.lookup("partial"), is(LaunchableIds.UNKNOWN));
+
+        // The partial line should be gone so that appends end up in the right place
+        testMe.intern("c");
+        testMe.persist();
+        try (RandomAccessFile written = new RandomAccessFile(file, "r")) {
+            byte[] bytes = new byte[(int)written.length()];
+            written.readFully(bytes);
+            Assert.assertThat(new String(bytes, StandardCharsets.UTF_8), is("a\nb\nc\n"));
+        }
+    }
+
+    @Test
+    public void testUnreadableStartsOverWithoutDependents() throws IOException {
+        // A directory can't be read as a file
+        File file = tempdir.newFolder("ids");
+        File dependent = tempdir.newFile("history");
+
+        LaunchableIds testMe = new LaunchableIds(file, dependent);
+        Assert.assertThat(testMe.size(), is(0));
+
+        // The dependent's indices would be meaningless after starting over
+        Assert.assertThat(dependent.exists(), is(false));
+
+        testMe.intern("a");
+        testMe.persist();
+        Assert.assertThat(new LaunchableIds(file).lookup("a"), is(0));
+    }
+
+    @Test
+    public void testUnreadableKeptIfDependentsCantBeDeleted() throws IOException {
+        File file = tempdir.newFolder("ids");
+
+        // Non-empty directories can't be deleted
+        File dependent = tempdir.newFolder("history");
+        Assert.assertThat(new File(dependent, "undeletable").createNewFile(), is(true));
+
+        LaunchableIds testMe = new LaunchableIds(file, dependent);
+        testMe.intern("a");
+        try {
+            testMe.persist();
+            Assert.fail("Expected persisting to fail");
+        } catch (IOException e) {
+            // Expected, the dependent still refers to the old numbering
+        }
+        Assert.assertThat(file.isDirectory(), is(true));
+    }
+}
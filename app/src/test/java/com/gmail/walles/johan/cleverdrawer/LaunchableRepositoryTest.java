@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class LaunchableRepositoryTest {
+    @Test
+    public void testEmpty() {
+        LaunchableRepository testMe = new LaunchableRepository();
+        Assert.assertThat(testMe.getLaunchables(), is(nullValue()));
+        Assert.assertThat(testMe.isValid(), is(false));
+    }
+
+    @Test
+    public void testLoadAndInvalidate() {
+        LaunchableRepository testMe = new LaunchableRepository();
+        List<Launchable> launchables = Collections.singletonList(new DummyLaunchable("a"));
+
+        testMe.setLaunchables(launchables, testMe.getGeneration());
+        Assert.assertThat(testMe.getLaunchables(), sameInstance(launchables));
+        Assert.assertThat(testMe.isValid(), is(true));
+
+        testMe.invalidate("Testing");
+
+        // Invalid launchables are still available for showing until we have reloaded
+        Assert.assertThat(testMe.getLaunchables(), sameInstance(launchables));
+        Assert.assertThat(testMe.isValid(), is(false));
+    }
+
+    @Test
+    public void testInvalidatedDuringLoad() {
+        LaunchableRepository testMe = new LaunchableRepository();
+        long generation = testMe.getGeneration();
+
+        testMe.invalidate("Testing");
+        testMe.setLaunchables(Collections.emptyList(), generation);
+
+        // The load started before the invalidation, so what it loaded may be stale
+        Assert.assertThat(testMe.isValid(), is(false));
+
+        testMe.setLaunchables(Collections.emptyList(), testMe.getGeneration());
+        Assert.assertThat(testMe.isValid(), is(true));
+    }
+
+    @Test
+    public void testOlderLoadFinishingLast() {
+        LaunchableRepository testMe = new LaunchableRepository();
+        long olderGeneration = testMe.getGeneration();
+        testMe.invalidate("Testing");
+
+        List<Launchable> newer = Collections.singletonList(new DummyLaunchable("newer"));
+        Assert.assertThat(testMe.setLaunchables(newer, testMe.getGeneration()), is(true));
+
+        // The older load must not replace what the newer one loaded
+        List<Launchable> older = Collections.singletonList(new DummyLaunchable("older"));
+        Assert.assertThat(testMe.setLaunchables(older, olderGeneration), is(false));
+        Assert.assertThat(testMe.getLaunchables(), sameInstance(newer));
+        Assert.assertThat(testMe.isValid(), is(true));
+    }
+
+    @Test
+    public void testChangedPackages() {
+        LaunchableRepository testMe = new LaunchableRepository();
+
+        // Nothing loaded, everything needs loading
+        Assert.assertThat(testMe.getChangedPackages(), is(nullValue()));
+
+        testMe.setLaunchables(Collections.emptyList(), testMe.getGeneration());
+        Assert.assertThat(testMe.getChangedPackages(), is(Collections.emptySet()));
+
+        testMe.invalidatePackage("com.example.a");
+        testMe.invalidatePackage("com.example.b");
+        Assert.assertThat(testMe.isValid(), is(false));
+        Assert.assertThat(testMe.getChangedPackages(),
+                is(new HashSet<>(Arrays.asList("com.example.a", "com.example.b"))));
+
+        // After reloading those packages we should be up to date
+        testMe.setLaunchables(Collections.emptyList(), testMe.getGeneration());
+        Assert.assertThat(testMe.isValid(), is(true));
+        Assert.assertThat(testMe.getChangedPackages(), is(Collections.emptySet()));
+
+        // Anything but package changes means reloading everything
+        testMe.invalidatePackage("com.example.a");
+        testMe.invalidate("Testing");
+        Assert.assertThat(testMe.getChangedPackages(), is(nullValue()));
+    }
+}
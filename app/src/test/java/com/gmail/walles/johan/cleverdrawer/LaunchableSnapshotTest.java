@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.annotation.Nullable;
+
+public class LaunchableSnapshotTest {
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    private static class SnapshottableLaunchable extends DummyLaunchable {
+        private SnapshottableLaunchable(String id) {
+            super(id);
+        }
+
+        @Nullable
+        @Override
+        LaunchableSnapshot.Entry createSnapshotEntry() {
+            return LaunchableSnapshot.Entry.forComponent(
+                    LaunchableSnapshot.TYPE_APP, "com.example", getId());
+        }
+    }
+
+    @Test
+    public void testSaveAndRead() throws Exception {
+        Launchable scored = new SnapshottableLaunchable("Scored");
+        scored.setScore(3);
+
+        // Dummies can't be snapshotted and should be left out
+        Launchable dummy = new DummyLaunchable("Dummy");
+
+        Launchable unscored = new SnapshottableLaunchable("Unscored");
+        unscored.setName(new CaseInsensitive("Unscöred"));
+
+        File file = new File(tempdir.getRoot(), "snapshot");
+        LaunchableSnapshot.save(file, Arrays.asList(scored, dummy, unscored));
+
+        List<LaunchableSnapshot.Entry> entries = LaunchableSnapshot.read(file);
+        assert entries != null;
+        Assert.assertThat(entries.size(), is(2));
+
+        LaunchableSnapshot.Entry first = entries.get(0);
+        Assert.assertThat(first.type, is(LaunchableSnapshot.TYPE_APP));
+        Assert.assertThat(first.id, is("Scored"));
+        Assert.assertThat(first.name, is("Scored"));
+        Assert.assertThat(first.score, is(3.0));
+        Assert.assertThat(first.packageName, is("com.example"));
+        Assert.assertThat(first.className, is("Scored"));
+
+        LaunchableSnapshot.Entry second = entries.get(1);
+        Assert.assertThat(second.id, is("Unscored"));
+        Assert.assertThat(second.name, is("Unscöred"));
+        Assert.assertThat(second.score, is(nullValue()));
+    }
+
+    @Test
+    public void testContactEntry() throws Exception {
+        LaunchableSnapshot.Entry withPhoto =
+                LaunchableSnapshot.Entry.forContact(42, "content://photo/42");
+        withPhoto.id = "contacts.42";
+        withPhoto.name = "Adam";
+
+        LaunchableSnapshot.Entry withoutPhoto = LaunchableSnapshot.Entry.forContact(43, null);
+        withoutPhoto.id = "contacts.43";
+        withoutPhoto.name = "Bertil";
+
+        File file = new File(tempdir.getRoot(), "snapshot");
+        LaunchableSnapshot.write(file, Arrays.asList(withPhoto, withoutPhoto));
+
+        List<LaunchableSnapshot.Entry> entries = LaunchableSnapshot.read(file);
+        assert entries != null;
+        Assert.assertThat(entries.get(0).contactId, is(42L));
+        Assert.assertThat(entries.get(0).photoRef, is("content://photo/42"));
+        Assert.assertThat(entries.get(1).contactId, is(43L));
+        Assert.assertThat(entries.get(1).photoRef, is(nullValue()));
+        Assert.assertThat(entries.get(1).name, is("Bertil"));
+    }
+
+    @Test
+    public void testWriterKeepsNewest() throws Exception {
+        File file = new File(tempdir.getRoot(), "snapshot");
+        SnapshotWriter writer = new SnapshotWriter(file);
+
+        List<Launchable> older = Arrays.asList(
+                new SnapshottableLaunchable("Old1"), new SnapshottableLaunchable("Old2"));
+        List<Launchable> newer =
+                Collections.singletonList(new SnapshottableLaunchable("New"));
+        writer.save(older);
+        writer.save(newer).get();
+
+        List<LaunchableSnapshot.Entry> entries = LaunchableSnapshot.read(file);
+        assert entries != null;
+        Assert.assertThat(entries.size(), is(1));
+        Assert.assertThat(entries.get(0).id, is("New"));
+
+        // No temporary files left behind
+        Assert.assertThat(tempdir.getRoot().list(), is(new String[] {"snapshot"}));
+    }
+
+    @Test
+    public void testReadNoFile() {
+        File doesntExist = new File(tempdir.getRoot(), "doesntExist");
+        Assert.assertThat(LaunchableSnapshot.read(doesntExist), is(nullValue()));
+    }
+
+    @Test
+    public void testReadTruncated() throws Exception {
+        File file = new File(tempdir.getRoot(), "snapshot");
+        Launchable launchable = new SnapshottableLaunchable("Launchable");
+        LaunchableSnapshot.save(file, Arrays.asList(launchable, launchable));
+
+        // Chop off the last few bytes
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 3);
+        }
+
+        Assert.assertThat(LaunchableSnapshot.read(file), is(nullValue()));
+    }
+}
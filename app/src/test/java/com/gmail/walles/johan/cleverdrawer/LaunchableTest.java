@@ -39,4 +39,23 @@ public class LaunchableTest {
         launchable.setScore(5);
         Assert.assertThat(launchable.hasScore(), is(true));
     }
+
+    @Test
+    public void testCopy() {
+        Launchable launchable = new DummyLaunchable("Johan");
+        launchable.setIdIndex(3);
+        launchable.setScore(5);
+
+        Launchable copy = launchable.copy();
+        Assert.assertThat(copy, instanceOf(DummyLaunchable.class));
+        Assert.assertThat(copy.getId(), is("Johan"));
+        Assert.assertThat(copy.getIdIndex(), is(3));
+        Assert.assertThat(copy.getBaseScore(), is(5.0));
+
+        // Changing the copy shouldn't affect the original
+        copy.setName(new CaseInsensitive("Walles"));
+        copy.clearScore();
+        Assert.assertThat(launchable.getName().toString(), is("Johan"));
+        Assert.assertThat(launchable.getBaseScore(), is(5.0));
+    }
 }
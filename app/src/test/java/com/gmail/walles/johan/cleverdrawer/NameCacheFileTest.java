@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+public class NameCacheFileTest {
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    private static CachedName cachedName(String name, String locale) {
+        return new CachedName(name, new PackageVersion(1000, 2), locale);
+    }
+
+    private File write(byte[] bytes) throws Exception {
+        File file = new File(tempdir.getRoot(), "nameCache.bin");
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(bytes);
+        }
+        return file;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        LaunchableIds launchableIds = new LaunchableIds();
+        int apeIndex = launchableIds.intern("ape");
+        int gnuIndex = launchableIds.intern("gnu");
+        launchableIds.intern("not cached");
+
+        CachedName[] english = new CachedName[launchableIds.size()];
+        english[apeIndex] = cachedName("Ape", "en_US");
+        english[gnuIndex] = cachedName("Gnu", "en_US");
+        CachedName[] swedish = new CachedName[launchableIds.size()];
+        swedish[apeIndex] = cachedName("Apa", "sv_SE");
+
+        NameCachePartitions partitions = new NameCachePartitions();
+        partitions.put("sv_SE", swedish);
+        partitions.put("en_US", english);
+        byte[] bytes = NameCacheFile.encode(partitions, launchableIds);
+
+        NameCachePartitions decoded = NameCacheFile.decode(bytes, launchableIds);
+        Assert.assertThat(decoded.size(), is(2));
+        Assert.assertThat(decoded.getLocale(0), is("en_US"));
+
+        // Decoded arrays end at the last cached name
+        Assert.assertThat(Arrays.asList(decoded.get("en_US")),
+                is(Arrays.asList(Arrays.copyOf(english, gnuIndex + 1))));
+        Assert.assertThat(Arrays.asList(decoded.get("sv_SE")),
+                is(Arrays.asList(Arrays.copyOf(swedish, apeIndex + 1))));
+    }
+
+    @Test
+    public void testMap() throws Exception {
+        LaunchableIds launchableIds = new LaunchableIds();
+        CachedName[] names = new CachedName[100];
+        for (int i = 0; i < names.length; i++) {
+            names[launchableIds.intern("id" + i)] = cachedName("Name " + i, "en_US");
+        }
+        NameCachePartitions partitions = new NameCachePartitions();
+        partitions.put("en_US", names);
+        File file = write(NameCacheFile.encode(partitions, launchableIds));
+
+        NameCacheFile.View view = NameCacheFile.map(file, "en_US");
+        for (int i = 0; i < names.length; i++) {
+            Assert.assertThat(view.get("id" + i), is(names[i]));
+        }
+        Assert.assertThat(view.get("id100"), is((CachedName)null));
+
+        Assert.assertThat(NameCacheFile.map(file, "sv_SE").get("id0"), is((CachedName)null));
+    }
+
+    @Test
+    public void testMapComparesIds() throws Exception {
+        LaunchableIds launchableIds = new LaunchableIds();
+        CachedName[] names = new CachedName[1];
+        names[launchableIds.intern("ape")] = cachedName("Ape", "en_US");
+        NameCachePartitions partitions = new NameCachePartitions();
+        partitions.put("en_US", names);
+        byte[] bytes = NameCacheFile.encode(partitions, launchableIds);
+
+        // Change the stored ID but not its hash, like a hash collision would
+        String encoded = new String(bytes, "ISO-8859-1");
+        int idOffset = encoded.indexOf("ape");
+        Assert.assertThat(encoded.indexOf("ape", idOffset + 1), is(-1));
+        bytes[idOffset + 2] = 'x';
+
+        NameCacheFile.View view = NameCacheFile.map(write(bytes), "en_US");
+        Assert.assertThat(view.get("ape"), is((CachedName)null));
+    }
+
+    @Test
+    public void testMapMissingOrInvalid() throws Exception {
+        File missing = new File(tempdir.getRoot(), "missing");
+        Assert.assertThat(NameCacheFile.map(missing, "en_US").get("id"), is((CachedName)null));
+
+        File invalid = write("This is not a names cache".getBytes("UTF-8"));
+        Assert.assertThat(NameCacheFile.map(invalid, "en_US").get("id"), is((CachedName)null));
+    }
+}
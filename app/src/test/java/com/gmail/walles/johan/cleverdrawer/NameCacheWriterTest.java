@@ -0,0 +1,304 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import androidx.annotation.Nullable;
+
+public class NameCacheWriterTest {
+    private static final PackageVersion.Lookup NO_PACKAGE_VERSIONS = packageName -> null;
+
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    @Test
+    public void testNameCaching() throws Exception {
+        // Create an empty database
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        File idsFile = new File(tempdir.getRoot(), "idsFile");
+        LaunchableIds launchableIds = new LaunchableIds(idsFile);
+
+        // Populate cache with some mappings
+        Launchable l1 = new IntentLaunchable("id: 1", new CaseInsensitive("name: One"));
+        Launchable l2 = new IntentLaunchable("id: 2", new CaseInsensitive("name: Two"));
+        l1.setIdIndex(launchableIds.intern(l1.getId()));
+        l2.setIdIndex(launchableIds.intern(l2.getId()));
+        new NameCacheWriter(dbFile, launchableIds, null)
+                .cacheTrueNames(Arrays.asList(l1, l2), NO_PACKAGE_VERSIONS, null).get();
+
+        // Populate some new launchables with those mappings, from a new data source to simulate
+        // app restart
+        launchableIds = new LaunchableIds(idsFile);
+        l1 = new IntentLaunchable("id: 1", null);
+        l2 = new IntentLaunchable("id: 2", null);
+        l1.setIdIndex(launchableIds.lookup(l1.getId()));
+        l2.setIdIndex(launchableIds.lookup(l2.getId()));
+        NameCacheFile.View cache = new NameCacheWriter(dbFile, launchableIds, null).map();
+        DatabaseUtils.nameLaunchablesFromCache(cache, Arrays.asList(l1, l2));
+
+        // Verify that the new launchables got the right names
+        Assert.assertThat(l1.getName(), is(new CaseInsensitive("name: One")));
+        Assert.assertThat(l2.getName(), is(new CaseInsensitive("name: Two")));
+    }
+
+    @Test
+    public void testUpdateCachedNames() throws Exception {
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        LaunchableIds launchableIds = new LaunchableIds(new File(tempdir.getRoot(), "idsFile"));
+
+        Launchable l1 = new IntentLaunchable("id: 1", new CaseInsensitive("name: One"));
+        Launchable l2 = new IntentLaunchable("id: 2", new CaseInsensitive("name: Two"));
+        l1.setIdIndex(launchableIds.intern(l1.getId()));
+        l2.setIdIndex(launchableIds.intern(l2.getId()));
+        new NameCacheWriter(dbFile, launchableIds, null)
+                .cacheTrueNames(Arrays.asList(l1, l2), NO_PACKAGE_VERSIONS, null).get();
+
+        // Rename one and add a new one, without mentioning the other
+        Launchable renamed = new IntentLaunchable("id: 2", new CaseInsensitive("name: Zwei"));
+        Launchable added = new IntentLaunchable("id: 3", new CaseInsensitive("name: Three"));
+        renamed.setIdIndex(launchableIds.lookup(renamed.getId()));
+        added.setIdIndex(launchableIds.intern(added.getId()));
+        new NameCacheWriter(dbFile, launchableIds, null)
+                .updateCachedNames(Arrays.asList(renamed, added), NO_PACKAGE_VERSIONS).get();
+
+        Assert.assertThat(readCachedName(dbFile, "id: 1").name, is("name: One"));
+        Assert.assertThat(readCachedName(dbFile, "id: 2").name, is("name: Zwei"));
+        Assert.assertThat(readCachedName(dbFile, "id: 3").name, is("name: Three"));
+    }
+
+    /**
+     * A launchable from a package, counting how many times its true name has been resolved.
+     */
+    private static class CountingLaunchable extends DummyLaunchable {
+        private int resolveCount;
+
+        private CountingLaunchable(String id) {
+            super(id);
+        }
+
+        @Nullable
+        @Override
+        String getPackageName() {
+            return "com.example";
+        }
+
+        @Nullable
+        @Override
+        protected CaseInsensitive doGetTrueName() {
+            resolveCount++;
+            return new CaseInsensitive("True Name");
+        }
+    }
+
+    @Test
+    public void testCacheTrueNamesOnlyResolvesChanged() throws Exception {
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        LaunchableIds launchableIds = new LaunchableIds(new File(tempdir.getRoot(), "idsFile"));
+        CountingLaunchable launchable = new CountingLaunchable("id");
+        launchable.setIdIndex(launchableIds.intern(launchable.getId()));
+        List<Launchable> launchables = Collections.singletonList(launchable);
+        NameCacheWriter writer = new NameCacheWriter(dbFile, launchableIds, null);
+
+        PackageVersion.Lookup version1 = packageName -> new PackageVersion(1000, 1);
+        writer.cacheTrueNames(launchables, version1, null).get();
+        Assert.assertThat(launchable.resolveCount, is(1));
+
+        // Same version, the cached name should be used and the file left alone
+        Assert.assertThat(dbFile.setLastModified(0), is(true));
+        writer.cacheTrueNames(launchables, version1, null).get();
+        Assert.assertThat(launchable.resolveCount, is(1));
+        Assert.assertThat(dbFile.lastModified(), is(0L));
+
+        // Package updated
+        PackageVersion.Lookup version2 = packageName -> new PackageVersion(2000, 2);
+        writer.cacheTrueNames(launchables, version2, null).get();
+        Assert.assertThat(launchable.resolveCount, is(2));
+
+        // Locale changed
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(locale.equals(Locale.GERMANY) ? Locale.FRANCE : Locale.GERMANY);
+            writer.cacheTrueNames(launchables, version2, null).get();
+            Assert.assertThat(launchable.resolveCount, is(3));
+        } finally {
+            Locale.setDefault(locale);
+        }
+
+        CachedName cachedName = readCachedName(dbFile, "id");
+        Assert.assertThat(cachedName.name, is("True Name"));
+        Assert.assertThat(cachedName.lastUpdateTime, is(2000L));
+        Assert.assertThat(cachedName.versionCode, is(2L));
+    }
+
+    @Test
+    public void testSwitchLocales() throws Exception {
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        LaunchableIds launchableIds = new LaunchableIds(new File(tempdir.getRoot(), "idsFile"));
+        NameCacheWriter writer = new NameCacheWriter(dbFile, launchableIds, null);
+        CountingLaunchable launchable = new CountingLaunchable("id");
+        launchable.setIdIndex(launchableIds.intern(launchable.getId()));
+        List<Launchable> launchables = Collections.singletonList(launchable);
+        PackageVersion.Lookup version = packageName -> new PackageVersion(1000, 1);
+
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            writer.cacheTrueNames(launchables, version, null).get();
+            Locale.setDefault(Locale.FRANCE);
+            writer.cacheTrueNames(launchables, version, null).get();
+            Assert.assertThat(launchable.resolveCount, is(2));
+
+            // Switching back should reuse the names we already have
+            Locale.setDefault(Locale.GERMANY);
+            writer.cacheTrueNames(launchables, version, null).get();
+            Assert.assertThat(launchable.resolveCount, is(2));
+            Assert.assertThat(
+                    readCachedName(dbFile, "id").locale, is(Locale.GERMANY.toString()));
+
+            // Fill up the cache with other locales, this should evict the least recently used one
+            Locale.setDefault(Locale.ITALY);
+            writer.cacheTrueNames(launchables, version, null).get();
+            Locale.setDefault(Locale.JAPAN);
+            writer.cacheTrueNames(launchables, version, null).get();
+            Assert.assertThat(launchable.resolveCount, is(4));
+
+            Locale.setDefault(Locale.FRANCE);
+            Assert.assertThat(readCachedName(dbFile, "id"), is((CachedName)null));
+            Locale.setDefault(Locale.GERMANY);
+            Assert.assertThat(readCachedName(dbFile, "id").name, is("True Name"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testUnchangedAfterRestart() throws Exception {
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        File idsFile = new File(tempdir.getRoot(), "idsFile");
+        LaunchableIds launchableIds = new LaunchableIds(idsFile);
+        CountingLaunchable launchable = new CountingLaunchable("id");
+        launchable.setIdIndex(launchableIds.intern(launchable.getId()));
+        List<Launchable> launchables = Collections.singletonList(launchable);
+        PackageVersion.Lookup version = packageName -> new PackageVersion(1000, 1);
+
+        new NameCacheWriter(dbFile, launchableIds, null)
+                .cacheTrueNames(launchables, version, null).get();
+
+        // A new writer should find the same contents on disk and leave the file alone
+        Assert.assertThat(dbFile.setLastModified(0), is(true));
+        new NameCacheWriter(dbFile, new LaunchableIds(idsFile), null)
+                .cacheTrueNames(launchables, version, null).get();
+        Assert.assertThat(launchable.resolveCount, is(1));
+        Assert.assertThat(dbFile.lastModified(), is(0L));
+    }
+
+    @Test
+    public void testCoalesceRequests() throws Exception {
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        LaunchableIds launchableIds = new LaunchableIds(new File(tempdir.getRoot(), "idsFile"));
+        NameCacheWriter writer = new NameCacheWriter(dbFile, launchableIds, null);
+
+        Launchable blocker = new IntentLaunchable("id: 1", new CaseInsensitive("name: One"));
+        blocker.setIdIndex(launchableIds.intern(blocker.getId()));
+        Launchable first = new IntentLaunchable("id: 2", new CaseInsensitive("name: Two"));
+        first.setIdIndex(launchableIds.intern(first.getId()));
+        Launchable second = new IntentLaunchable("id: 3", new CaseInsensitive("name: Three"));
+        second.setIdIndex(launchableIds.intern(second.getId()));
+
+        // Keep the writer busy until we have made some more requests
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> blocked = writer.cacheTrueNames(Collections.singletonList(blocker),
+                NO_PACKAGE_VERSIONS, (launchable, trueName, resolvedCount, totalCount) -> {
+                    busy.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+        busy.await();
+
+        Future<?> firstDone = writer.cacheTrueNames(
+                Collections.singletonList(first), NO_PACKAGE_VERSIONS, null);
+        Future<?> secondDone = writer.updateCachedNames(
+                Collections.singletonList(second), NO_PACKAGE_VERSIONS);
+
+        // Both requests should be handled by the same update
+        Assert.assertThat(secondDone, sameInstance(firstDone));
+        Assert.assertThat(writer.getCompletion(), sameInstance(firstDone));
+
+        release.countDown();
+        blocked.get();
+        writer.getCompletion().get();
+        Assert.assertThat(firstDone.isDone(), is(true));
+
+        // The blocker's name was dropped by the first request, the second request added to that
+        Assert.assertThat(readCachedName(dbFile, blocker.getId()), is((CachedName)null));
+        Assert.assertThat(readCachedName(dbFile, first.getId()).name, is("name: Two"));
+        Assert.assertThat(readCachedName(dbFile, second.getId()).name, is("name: Three"));
+    }
+
+    @Test
+    public void testMigrateLegacyCache() throws Exception {
+        File dbFile = new File(tempdir.getRoot(), "testFile");
+        File legacyFile = new File(tempdir.getRoot(), "legacyFile");
+        try (PrintWriter out = new PrintWriter(legacyFile)) {
+            out.println("{\"id: 1\": \"name: One\", \"id: 2\": \"name: Two\"}");
+        }
+
+        LaunchableIds launchableIds = new LaunchableIds(new File(tempdir.getRoot(), "idsFile"));
+        NameCacheFile.View cache = new NameCacheWriter(dbFile, launchableIds, legacyFile).map();
+
+        Assert.assertThat(cache.get("id: 1").name, is("name: One"));
+        Assert.assertThat(cache.get("id: 2").name, is("name: Two"));
+        Assert.assertThat(cache.get("id: 3"), is((CachedName)null));
+        Assert.assertThat(dbFile.exists(), is(true));
+        Assert.assertThat(legacyFile.exists(), is(false));
+    }
+
+    @Nullable
+    private static CachedName readCachedName(File dbFile, String id) {
+        return NameCacheFile.map(dbFile, Locale.getDefault().toString()).get(id);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import androidx.annotation.Nullable;
+
+public class NameResolverTest {
+    private static class NamedLaunchable extends DummyLaunchable {
+        @Nullable
+        private final String trueName;
+
+        private NamedLaunchable(String id, @Nullable String trueName) {
+            super(id);
+            this.trueName = trueName;
+        }
+
+        @Nullable
+        @Override
+        protected CaseInsensitive doGetTrueName() {
+            return trueName == null ? null : new CaseInsensitive(trueName);
+        }
+    }
+
+    @Test
+    public void testResolve() {
+        List<Launchable> launchables = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            launchables.add(new NamedLaunchable("id" + i, "Name " + i));
+        }
+
+        CaseInsensitive[] trueNames = NameResolver.resolve(launchables, null);
+
+        Assert.assertThat(trueNames.length, is(100));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertThat(trueNames[i], is(new CaseInsensitive("Name " + i)));
+        }
+    }
+
+    @Test
+    public void testResolveFallsBackToName() {
+        Launchable launchable = new NamedLaunchable("id", null);
+
+        CaseInsensitive[] trueNames =
+                NameResolver.resolve(Collections.singletonList(launchable), null);
+
+        // DummyLaunchable names itself after its ID
+        Assert.assertThat(trueNames[0], is(new CaseInsensitive("id")));
+    }
+
+    @Test
+    public void testResolveEmpty() {
+        Assert.assertThat(
+                NameResolver.resolve(Collections.emptyList(), null).length, is(0));
+    }
+
+    @Test
+    public void testListener() {
+        List<Launchable> launchables = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            launchables.add(new NamedLaunchable("id" + i, "Name " + i));
+        }
+
+        Set<Launchable> reported = ConcurrentHashMap.newKeySet();
+        Set<Integer> resolvedCounts = ConcurrentHashMap.newKeySet();
+        NameResolver.resolve(launchables, (launchable, trueName, resolvedCount, totalCount) -> {
+            Assert.assertThat(trueName, is(launchable.getTrueName()));
+            Assert.assertThat(totalCount, is(50));
+            reported.add(launchable);
+            resolvedCounts.add(resolvedCount);
+        });
+
+        // Every launchable reported once, with a distinct progress count each time
+        Assert.assertThat(reported.size(), is(50));
+        Assert.assertThat(resolvedCounts.size(), is(50));
+        Assert.assertThat(Collections.max(resolvedCounts), is(50));
+        Assert.assertThat(Collections.min(resolvedCounts), is(1));
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PipelineTest {
+    @Test
+    public void testDependencies() {
+        Pipeline pipeline = new Pipeline("testDependencies()");
+        Pipeline.Stage<Integer> two = pipeline.addStage("Two", () -> 2, () -> 0);
+        Pipeline.Stage<Integer> three = pipeline.addStage("Three", () -> 3, () -> 0);
+        Pipeline.Stage<Integer> product = pipeline.addStage("Product",
+                () -> two.get() * three.get(), () -> 0,
+                two, three);
+        pipeline.start();
+
+        Assert.assertThat(product.get(), is(6));
+    }
+
+    @Test
+    public void testIndependentStagesRunConcurrently() {
+        // Each stage waits for the other one to start, so this only works if they run in parallel
+        CountDownLatch started = new CountDownLatch(2);
+        Pipeline.Work<Boolean> work = () -> {
+            started.countDown();
+            return started.await(10, TimeUnit.SECONDS);
+        };
+
+        Pipeline pipeline = new Pipeline("testIndependentStagesRunConcurrently()");
+        Pipeline.Stage<Boolean> first = pipeline.addStage("First", work, () -> false);
+        Pipeline.Stage<Boolean> second = pipeline.addStage("Second", work, () -> false);
+        pipeline.start();
+
+        Assert.assertThat(first.get(), is(true));
+        Assert.assertThat(second.get(), is(true));
+    }
+
+    @Test
+    public void testFailureUsesFallback() {
+        Pipeline pipeline = new Pipeline("testFailureUsesFallback()");
+        Pipeline.Stage<String> failing = pipeline.addStage("Failing",
+                () -> {
+                    throw new RuntimeException("Failing on purpose");
+                },
+                () -> "fallback");
+        Pipeline.Stage<String> dependent = pipeline.addStage("Dependent",
+                () -> failing.get() + " used", () -> "not used",
+                failing);
+        pipeline.start();
+
+        Assert.assertThat(dependent.get(), is("fallback used"));
+    }
+
+    @Test
+    public void testFailingFallbackStillCompletes() {
+        Pipeline pipeline = new Pipeline("testFailingFallbackStillCompletes()");
+        Pipeline.Stage<String> failing = pipeline.addStage("Failing",
+                () -> {
+                    throw new RuntimeException("Failing on purpose");
+                },
+                () -> {
+                    throw new RuntimeException("Fallback failing on purpose");
+                });
+        Pipeline.Stage<String> dependent = pipeline.addStage("Dependent",
+                () -> failing.get() + " used", () -> "not used",
+                failing);
+        pipeline.start();
+
+        Assert.assertThat(dependent.get(), is("null used"));
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        Pipeline pipeline = new Pipeline("testCancel()");
+        Pipeline.Stage<String> first = pipeline.addStage("First",
+                () -> {
+                    started.countDown();
+                    cancelled.await();
+                    return "first";
+                },
+                () -> "fallback");
+        Pipeline.Stage<String> second = pipeline.addStage("Second",
+                () -> {
+                    throw new AssertionError("Should not run after cancel()");
+                },
+                () -> "fallback",
+                first);
+        pipeline.start();
+
+        started.await();
+        pipeline.cancel();
+        cancelled.countDown();
+
+        try {
+            second.get();
+            Assert.fail("Expected a CancellationException");
+        } catch (CancellationException e) {
+            // Expected
+        }
+        Assert.assertThat(pipeline.isCancelled(), is(true));
+    }
+
+    @Test
+    public void testOnStoppedWhenDone() throws InterruptedException {
+        Pipeline pipeline = new Pipeline("testOnStoppedWhenDone()");
+        Pipeline.Stage<Integer> first = pipeline.addStage("First", () -> 1, () -> 0);
+        Pipeline.Stage<Integer> second = pipeline.addStage("Second",
+                () -> first.get() + 1, () -> 0,
+                first);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        AtomicBoolean secondWasDone = new AtomicBoolean();
+        pipeline.setOnStopped(() -> {
+            secondWasDone.set(second.isDone());
+            stopped.countDown();
+        });
+        pipeline.start();
+
+        Assert.assertThat(stopped.await(10, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(secondWasDone.get(), is(true));
+        Assert.assertThat(second.get(), is(2));
+    }
+
+    @Test
+    public void testOnStoppedWhenCancelled() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        Pipeline pipeline = new Pipeline("testOnStoppedWhenCancelled()");
+        Pipeline.Stage<String> first = pipeline.addStage("First",
+                () -> {
+                    started.countDown();
+                    cancelled.await();
+                    return "first";
+                },
+                () -> "fallback");
+        pipeline.addStage("Second", () -> "second", () -> "fallback", first);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        AtomicBoolean firstWasDone = new AtomicBoolean();
+        pipeline.setOnStopped(() -> {
+            firstWasDone.set(first.isDone());
+            stopped.countDown();
+        });
+        pipeline.start();
+
+        started.await();
+        pipeline.cancel();
+        Assert.assertThat(stopped.getCount(), is(1L));
+        cancelled.countDown();
+
+        // Once the running stage is done, even though the second one never runs
+        Assert.assertThat(stopped.await(10, TimeUnit.SECONDS), is(true));
+        Assert.assertThat(firstWasDone.get(), is(true));
+    }
+}
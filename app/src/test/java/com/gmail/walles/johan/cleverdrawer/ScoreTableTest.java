@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+public class ScoreTableTest {
+    @SuppressWarnings("CanBeFinal")
+    @Rule
+    public TemporaryFolder tempdir = new TemporaryFolder();
+
+    private static final int ID_COUNT = 20;
+
+    private static LaunchableIds createLaunchableIds() {
+        LaunchableIds launchableIds = new LaunchableIds();
+        for (int i = 0; i < ID_COUNT; i++) {
+            launchableIds.intern("id" + i);
+        }
+        return launchableIds;
+    }
+
+    private static LaunchLog createLaunches(int count) {
+        Random random = new Random(count);
+        int[] idIndices = new int[count];
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Skewed, so that some IDs are launched more often than others
+            idIndices[i] = random.nextInt(1 + random.nextInt(ID_COUNT));
+            timestamps[i] = i;
+        }
+        return new LaunchArrays(idIndices, timestamps, count);
+    }
+
+    private static void assertSameCounts(ScoreTable actual, ScoreTable expected) {
+        for (int idIndex = 0; idIndex < ID_COUNT; idIndex++) {
+            Assert.assertThat("Index " + idIndex,
+                    actual.getCount(idIndex), is(expected.getCount(idIndex)));
+        }
+    }
+
+    @Test
+    public void testIncrementalMatchesRecount() {
+        LaunchableIds launchableIds = createLaunchableIds();
+        LaunchLog launches = createLaunches(DatabaseUtils.SCORING_MAX_LAUNCH_COUNT * 3);
+
+        ScoreTable incremental = new ScoreTable(launchableIds);
+        for (int i = 0; i < launches.size(); i++) {
+            incremental.add(launches, i);
+        }
+
+        assertSameCounts(incremental, ScoreTable.fromLaunches(launches, launchableIds));
+        Assert.assertThat(incremental.getAppendCount(), is((long)launches.size()));
+    }
+
+    @Test
+    public void testSaveAndCatchUp() throws Exception {
+        LaunchableIds launchableIds = createLaunchableIds();
+        File file = new File(tempdir.getRoot(), "scores");
+        LaunchLog launches = createLaunches(1000);
+
+        ScoreTable saved = new ScoreTable(launchableIds);
+        for (int i = 0; i < 900; i++) {
+            saved.add(launches, i);
+        }
+        saved.save(file);
+
+        // The history has moved on by 100 launches since the table was saved
+        ScoreTable loaded = ScoreTable.load(file, launchableIds, launches, launches.size());
+
+        Assert.assertThat(loaded.getAppendCount(), is(1000L));
+        assertSameCounts(loaded, ScoreTable.fromLaunches(launches, launchableIds));
+    }
+
+    @Test
+    public void testRecountWhenAheadOfHistory() throws Exception {
+        LaunchableIds launchableIds = createLaunchableIds();
+        File file = new File(tempdir.getRoot(), "scores");
+        LaunchLog launches = createLaunches(1000);
+
+        ScoreTable saved = new ScoreTable(launchableIds);
+        for (int i = 0; i < launches.size(); i++) {
+            saved.add(launches, i);
+        }
+        saved.save(file);
+
+        // The history is behind the table, so the table can't be trusted
+        LaunchLog shorter = createLaunches(990);
+        ScoreTable loaded = ScoreTable.load(file, launchableIds, shorter, shorter.size());
+
+        Assert.assertThat(loaded.getAppendCount(), is(990L));
+        assertSameCounts(loaded, ScoreTable.fromLaunches(shorter, launchableIds));
+    }
+
+    @Test
+    public void testRecountWhenCountsDontAddUp() throws Exception {
+        File file = new File(tempdir.getRoot(), "scores");
+        LaunchLog launches = createLaunches(1000);
+
+        // Counted against a smaller ID dictionary, so launches of the other IDs are missing
+        LaunchableIds fewerIds = new LaunchableIds();
+        for (int i = 0; i < 5; i++) {
+            fewerIds.intern("id" + i);
+        }
+        ScoreTable saved = new ScoreTable(fewerIds);
+        for (int i = 0; i < launches.size(); i++) {
+            saved.add(launches, i);
+        }
+        saved.save(file);
+
+        // Up to date with the history, but must be recounted anyway
+        LaunchableIds launchableIds = createLaunchableIds();
+        ScoreTable loaded = ScoreTable.load(file, launchableIds, launches, launches.size());
+
+        Assert.assertThat(loaded.getAppendCount(), is(1000L));
+        assertSameCounts(loaded, ScoreTable.fromLaunches(launches, launchableIds));
+    }
+
+    @Test
+    public void testUnknownIdsDontForceRecount() throws Exception {
+        LaunchableIds launchableIds = createLaunchableIds();
+        File file = new File(tempdir.getRoot(), "scores");
+
+        // Every tenth launch is of an index the IDs don't know about
+        int count = DatabaseUtils.SCORING_MAX_LAUNCH_COUNT + 100;
+        int[] idIndices = new int[count];
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            idIndices[i] = i % 10 == 0 ? ID_COUNT + 5 : i % 3;
+            timestamps[i] = i;
+        }
+        LaunchLog launches = new LaunchArrays(idIndices, timestamps, count);
+
+        ScoreTable saved = ScoreTable.fromLaunches(launches, launchableIds);
+        saved.save(file);
+
+        // A history without the launches we counted, so a recount would give other scores
+        LaunchLog otherLaunches = new LaunchArrays(new int[count], timestamps, count);
+        ScoreTable loaded = ScoreTable.load(file, launchableIds, otherLaunches, count);
+
+        Assert.assertThat(loaded.getAppendCount(), is((long)count));
+        assertSameCounts(loaded, saved);
+    }
+
+    @Test
+    public void testCorruptFile() throws Exception {
+        LaunchableIds launchableIds = createLaunchableIds();
+        File file = new File(tempdir.getRoot(), "scores");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] { 1, 2, 3 });
+        }
+
+        LaunchLog launches = createLaunches(100);
+        ScoreTable loaded = ScoreTable.load(file, launchableIds, launches, launches.size());
+
+        assertSameCounts(loaded, ScoreTable.fromLaunches(launches, launchableIds));
+    }
+}
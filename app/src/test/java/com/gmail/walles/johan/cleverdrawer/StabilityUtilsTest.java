@@ -40,10 +40,13 @@ import java.util.LinkedList;
 import java.util.List;
 
 public class StabilityUtilsTest {
+    private static final LaunchableIds launchableIds = new LaunchableIds();
+
     private static class EqualsLaunchable extends DummyLaunchable {
         protected EqualsLaunchable(String id) {
             super(id);
             setName(new CaseInsensitive(id));
+            setIdIndex(launchableIds.intern(id));
         }
 
         @Override
@@ -77,13 +80,29 @@ public class StabilityUtilsTest {
         return Collections.unmodifiableList(launchables);
     }
 
+    private static int[] indices(String ... ids) {
+        int[] indices = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            indices[i] = launchableIds.intern(ids[i]);
+        }
+        return indices;
+    }
+
+    private static List<String> toIds(int[] indices) {
+        List<String> ids = new LinkedList<>();
+        for (int index: indices) {
+            ids.add(launchableIds.getId(index));
+        }
+        return ids;
+    }
+
     @Test
     public void testStabilizeBase() {
         // Create a list of launchables
         List<Launchable> launchables = createLaunchablesWithIds("a", "b", "c", "d", "e", "f");
 
         // Create a list of IDs
-        List<String> oldOrderIds = Arrays.asList("a", "b", "c", "d", "e", "f");
+        int[] oldOrderIds = indices("a", "b", "c", "d", "e", "f");
 
         // Validate that the launchables list was suitably stabilized from the IDs list
         List<Launchable> stabilized = StabilityUtils.stabilize(oldOrderIds, launchables);
@@ -98,7 +117,7 @@ public class StabilityUtilsTest {
         List<Launchable> launchables = createLaunchablesWithIds("a", "b", "c", "d", "e", "f");
 
         // Create a list of IDs
-        List<String> oldOrderIds = Collections.emptyList();
+        int[] oldOrderIds = indices();
 
         // Validate that the launchables list was suitably stabilized from the IDs list
         List<Launchable> stabilized = StabilityUtils.stabilize(oldOrderIds, launchables);
@@ -113,7 +132,7 @@ public class StabilityUtilsTest {
         List<Launchable> launchables = createLaunchablesWithIds("a", "c", "b", "d", "e", "f");
 
         // Create a list of IDs
-        List<String> oldOrderIds = Arrays.asList("a", "b", "c", "d", "e", "f");
+        int[] oldOrderIds = indices("a", "b", "c", "d", "e", "f");
 
         // Validate that the launchables list was suitably stabilized from the IDs list
         List<Launchable> stabilized = StabilityUtils.stabilize(oldOrderIds, launchables);
@@ -129,7 +148,7 @@ public class StabilityUtilsTest {
         List<Launchable> launchables = createLaunchablesWithIds();
 
         // Create a list of IDs
-        List<String> oldOrderIds = Arrays.asList("a", "b", "c", "d", "e", "f");
+        int[] oldOrderIds = indices("a", "b", "c", "d", "e", "f");
 
         // Validate that the launchables list was suitably stabilized from the IDs list
         List<Launchable> stabilized = StabilityUtils.stabilize(oldOrderIds, launchables);
@@ -144,7 +163,7 @@ public class StabilityUtilsTest {
         List<Launchable> launchables = createLaunchablesWithIds("a", "b", "c", "e", "d", "f");
 
         // Create a list of IDs
-        List<String> oldOrderIds = Arrays.asList("a", "b", "c", "d", "e", "f");
+        int[] oldOrderIds = indices("a", "b", "c", "d", "e", "f");
 
         // Validate that the launchables list was suitably stabilized from the IDs list
         List<Launchable> stabilized = StabilityUtils.stabilize(oldOrderIds, launchables);
@@ -159,7 +178,7 @@ public class StabilityUtilsTest {
         List<Launchable> launchables = createLaunchablesWithIds("x", "a", "b", "c", "d", "e", "f");
 
         // Create a list of IDs
-        List<String> oldOrderIds = Arrays.asList("a", "b", "c", "d", "e", "f");
+        int[] oldOrderIds = indices("a", "b", "c", "d", "e", "f");
 
         // Validate that the launchables list was suitably stabilized from the IDs list
         List<Launchable> stabilized = StabilityUtils.stabilize(oldOrderIds, launchables);
@@ -177,7 +196,7 @@ public class StabilityUtilsTest {
         StabilityUtils.storeOrder(lastOrder, launchables);
 
         // Load the list back
-        List<String> loadedIds = StabilityUtils.loadIdOrder(lastOrder);
+        List<String> loadedIds = toIds(StabilityUtils.loadIdOrder(lastOrder, launchableIds));
 
         List<String> expected = new LinkedList<>();
         for (Launchable launchable: launchables) {
@@ -207,7 +226,34 @@ public class StabilityUtilsTest {
     public void testLoadIdOrderNoFile() {
         File doesntExist = new File(tempdir.getRoot(), "doesntExist");
 
-        Assert.assertThat(StabilityUtils.loadIdOrder(doesntExist), is(Collections.emptyList()));
+        Assert.assertThat(StabilityUtils.loadIdOrder(doesntExist, launchableIds).length, is(0));
+    }
+
+    @Test
+    public void testLoadIdOrderOldFormat() throws Exception {
+        File lastOrder = new File(tempdir.getRoot(), "lastOrder");
+
+        try (PrintWriter out = new PrintWriter(lastOrder)) {
+            out.println("com.example.Zebra");
+            out.println("com.example.Ape");
+        }
+
+        List<String> loadedIds = toIds(StabilityUtils.loadIdOrder(lastOrder, launchableIds));
+        Assert.assertThat(loadedIds, is(Arrays.asList("com.example.Zebra", "com.example.Ape")));
+    }
+
+    @Test
+    public void testKeepShownOrder() {
+        Launchable a = new EqualsLaunchable("a");
+        Launchable b = new EqualsLaunchable("b");
+        Launchable c = new EqualsLaunchable("c");
+        Launchable gone = new EqualsLaunchable("gone");
+
+        List<Launchable> kept =
+                StabilityUtils.keepShownOrder(Arrays.asList(b, gone, a), Arrays.asList(a, c, b));
+
+        // The shown ones keep their order, the new one stays in between them
+        Assert.assertThat(kept, is(Arrays.asList(b, c, a)));
     }
 
     @Test
@@ -226,7 +272,7 @@ public class StabilityUtilsTest {
         StabilityUtils.storeOrder(lastOrder, launchables);
 
         // Load the list back
-        List<String> loadedIds = StabilityUtils.loadIdOrder(lastOrder);
+        List<String> loadedIds = toIds(StabilityUtils.loadIdOrder(lastOrder, launchableIds));
 
         // We expect to only get the interesting one back when we load the list
         List<String> expected = Collections.singletonList(interesting.getId());
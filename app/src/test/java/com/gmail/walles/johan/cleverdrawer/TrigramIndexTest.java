@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2026 Johan Walles <johan.walles@gmail.com>
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.gmail.walles.johan.cleverdrawer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TrigramIndexTest {
+    private static final TrigramIndex INDEX = new TrigramIndex(new FoldedNames(Arrays.asList(
+            new DummyLaunchable("Mitt Telenor"),
+            new DummyLaunchable("Telegram"),
+            new DummyLaunchable("Gmail"),
+            new DummyLaunchable("aaaa"))));
+
+    /**
+     * @return null if everything needs checking
+     */
+    private static int[] candidates(String query) {
+        int[] candidates = new int[4];
+        int count = INDEX.getCandidates(new CaseInsensitiveQuery(query), candidates);
+        if (count < 0) {
+            return null;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    @Test
+    public void testCandidates() {
+        Assert.assertThat(candidates("tele"), is(new int[] {0, 1}));
+        Assert.assertThat(candidates("TELEN"), is(new int[] {0}));
+        Assert.assertThat(candidates("ail"), is(new int[] {2}));
+        Assert.assertThat(candidates("aaa"), is(new int[] {3}));
+        Assert.assertThat(candidates("xyz"), is(new int[0]));
+    }
+
+    @Test
+    public void testAllWordsMustMatch() {
+        Assert.assertThat(candidates("tele mit"), is(new int[] {0}));
+        Assert.assertThat(candidates("tele gram"), is(new int[] {1}));
+        Assert.assertThat(candidates("tele gmail"), is(new int[0]));
+
+        // Short words can't be looked up, but the long ones still narrow things down
+        Assert.assertThat(candidates("tele m"), is(new int[] {0, 1}));
+    }
+
+    @Test
+    public void testShortQueries() {
+        Assert.assertThat(candidates(""), is(nullValue()));
+        Assert.assertThat(candidates("t"), is(nullValue()));
+        Assert.assertThat(candidates("te gm"), is(nullValue()));
+    }
+
+    /**
+     * Verify that the index never drops a launchable that would have matched.
+     */
+    @Test
+    public void testSameAsScanning() {
+        Random random = new Random(42);
+        List<Launchable> launchables = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            launchables.add(new DummyLaunchable(randomWords(random)));
+        }
+        TrigramIndex index = new TrigramIndex(new FoldedNames(launchables));
+        int[] candidates = new int[launchables.size()];
+
+        for (int i = 0; i < 500; i++) {
+            CaseInsensitiveQuery query = new CaseInsensitiveQuery(randomWords(random));
+            int count = index.getCandidates(query, candidates);
+            if (count < 0) {
+                // Nothing to verify, everything will be checked
+                continue;
+            }
+
+            List<Integer> expected = new ArrayList<>();
+            List<Integer> actual = new ArrayList<>();
+            for (int j = 0; j < launchables.size(); j++) {
+                if (query.matches(launchables.get(j).getName())) {
+                    expected.add(j);
+                }
+            }
+            for (int j = 0; j < count; j++) {
+                if (query.matches(launchables.get(candidates[j]).getName())) {
+                    actual.add(candidates[j]);
+                }
+            }
+            Assert.assertThat(actual, is(expected));
+        }
+    }
+
+    private static String randomWords(Random random) {
+        StringBuilder words = new StringBuilder();
+        int wordCount = 1 + random.nextInt(2);
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) {
+                words.append(' ');
+            }
+            int length = 1 + random.nextInt(5);
+            for (int j = 0; j < length; j++) {
+                // Few letters, so that queries match something
+                words.append((char)('a' + random.nextInt(4)));
+            }
+        }
+        return words.toString();
+    }
+}